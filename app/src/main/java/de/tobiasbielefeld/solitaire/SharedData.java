@@ -31,17 +31,22 @@ import java.util.StringTokenizer;
 import de.tobiasbielefeld.solitaire.classes.Card;
 import de.tobiasbielefeld.solitaire.classes.Stack;
 import de.tobiasbielefeld.solitaire.games.Game;
-import de.tobiasbielefeld.solitaire.handler.TestAfterMoveHandler;
-import de.tobiasbielefeld.solitaire.handler.TestIfWonHandler;
 import de.tobiasbielefeld.solitaire.helper.Animate;
 import de.tobiasbielefeld.solitaire.helper.AutoComplete;
+import de.tobiasbielefeld.solitaire.helper.AutoCompleteSolver;
 import de.tobiasbielefeld.solitaire.helper.Bitmaps;
 import de.tobiasbielefeld.solitaire.helper.CardHighlight;
+import de.tobiasbielefeld.solitaire.helper.DeadEndDetector;
+import de.tobiasbielefeld.solitaire.helper.DragRenderer;
 import de.tobiasbielefeld.solitaire.helper.GameLogic;
 import de.tobiasbielefeld.solitaire.helper.Hint;
 import de.tobiasbielefeld.solitaire.helper.MovingCards;
+import de.tobiasbielefeld.solitaire.helper.PerformanceMonitor;
+import de.tobiasbielefeld.solitaire.helper.PostMovePipeline;
+import de.tobiasbielefeld.solitaire.helper.SettingsSnapshot;
 import de.tobiasbielefeld.solitaire.helper.RecordList;
 import de.tobiasbielefeld.solitaire.helper.Scores;
+import de.tobiasbielefeld.solitaire.helper.StackIndex;
 import de.tobiasbielefeld.solitaire.helper.Timer;
 
 /**
@@ -60,12 +65,15 @@ public class SharedData {
     public static String GAME_WON;
     public static String GAME_NUMBER_OF_WON_GAMES;
     public static String GAME_NUMBER_OF_PLAYED_GAMES;
+    public static String GAME_NUMBER_OF_DEAD_ENDS;
+    public static String GAME_DEAD_END_RECORDED;
     public static String GAME_RANDOM_CARDS;
     public static String GAME_FIRST_RUN;
     public static String GAME_MOVED_FIRST_CARD;
     public static String RECORD_LIST_ENTRY;
     public static String RECORD_LIST_ENTRIES_SIZE;
     public static String FLIP_CARD;
+    public static String UNDO_POINTS;
     public static String ORIGIN;
     public static String CARD;
     public static String CARDS;
@@ -79,6 +87,7 @@ public class SharedData {
     public static String MENU_COLUMNS_LANDSCAPE;
     public static String CANFIELD_START_CARD_VALUE;
     public static String RESTART_DIALOG;
+    public static String DEAD_END_DIALOG;
     public static String PREF_KEY_YUKON_RULES;
     public static String PREF_KEY_YUKON_RULES_OLD;
     public static String PREF_KEY_FORTY_EIGHT_LIMITED_REDEALS;
@@ -106,6 +115,9 @@ public class SharedData {
     public static String PREF_KEY_BACKGROUND_COLOR_TYPE;
     public static String PREF_KEY_BACKGROUND_COLOR;
     public static String PREF_KEY_BACKGROUND_COLOR_CUSTOM;
+    public static String PREF_KEY_DEBUG_OVERLAY;
+    public static String PREF_KEY_INSTANT_FINISH;
+    public static String PREF_KEY_AUTO_PLAY;
     public static String DEFAULT_CANFIELD_DRAW;
     public static String DEFAULT_KLONDIKE_DRAW;
     public static String DEFAULT_YUKON_RULES;
@@ -136,6 +148,9 @@ public class SharedData {
     public static boolean DEFAULT_4_COLOR_MODE;
     public static boolean DEFAULT_TAP_TO_SELECT_ENABLED;
     public static boolean DEFAULT_SINGLE_TAP_ENABLED;
+    public static boolean DEFAULT_DEBUG_OVERLAY;
+    public static boolean DEFAULT_INSTANT_FINISH;
+    public static boolean DEFAULT_AUTO_PLAY;
 
     public static Card[] cards;
     public static Stack[] stacks;
@@ -150,13 +165,18 @@ public class SharedData {
     public static LoadGame lg = new LoadGame();
     public static Bitmaps bitmaps = new Bitmaps();
     public static CardHighlight cardHighlight;
+    public static PerformanceMonitor performanceMonitor;
+    public static StackIndex stackIndex;
+    public static DragRenderer dragRenderer;
+    public static PostMovePipeline postMovePipeline;
+    public static AutoCompleteSolver autoCompleteSolver;
+    public static DeadEndDetector deadEndDetector;
+    public static SettingsSnapshot settings;                                                        //settings read while playing, updated with updateSettings()
 
     public static SharedPreferences savedSharedData;
     public static SharedPreferences savedGameData;
     public static Game currentGame;
 
-    public static TestAfterMoveHandler testAfterMoveHandler = new TestAfterMoveHandler();
-    public static TestIfWonHandler testIfWonHandler = new TestIfWonHandler();
 
     public static int NUMBER_OF_CARD_BACKGROUNDS;
     public static int NUMBER_OF_CARD_THEMES;
@@ -187,6 +207,17 @@ public class SharedData {
         if (savedGameData == null) {
             savedGameData = context.getSharedPreferences(lg.getSharedPrefName(), Context.MODE_PRIVATE);
         }
+
+        if (settings == null) {
+            updateSettings();
+        }
+    }
+
+    /**
+     * Reads the settings used while playing again. Call this after a shared preference changed.
+     */
+    public static void updateSettings() {
+        settings = new SettingsSnapshot();
     }
 
     /**
@@ -225,6 +256,9 @@ public class SharedData {
         PREF_KEY_BACKGROUND_COLOR_TYPE = res.getString(R.string.pref_key_background_color_type);
         PREF_KEY_BACKGROUND_COLOR = res.getString(R.string.pref_key_background_color);
         PREF_KEY_BACKGROUND_COLOR_CUSTOM = res.getString(R.string.pref_key_background_color_custom);
+        PREF_KEY_DEBUG_OVERLAY = res.getString(R.string.pref_key_debug_overlay);
+        PREF_KEY_INSTANT_FINISH = res.getString(R.string.pref_key_instant_finish);
+        PREF_KEY_AUTO_PLAY = res.getString(R.string.pref_key_auto_play);
 
         DEFAULT_PYRAMID_DIFFICULTY = res.getStringArray(R.array.pref_pyramid_difficulty_values)[0];
         DEFAULT_LANGUAGE = res.getStringArray(R.array.pref_language_values)[0];
@@ -238,6 +272,9 @@ public class SharedData {
         DEFAULT_FORTY_EIGHT_LIMITED_REDEALS = res.getBoolean(R.bool.default_forty_eight_limited_redeals);
         DEFAULT_TAP_TO_SELECT_ENABLED = res.getBoolean(R.bool.default_tap_to_select_enable);
         DEFAULT_SINGLE_TAP_ENABLED = res.getBoolean(R.bool.default_single_tap_enable);
+        DEFAULT_DEBUG_OVERLAY = res.getBoolean(R.bool.default_debug_overlay);
+        DEFAULT_INSTANT_FINISH = res.getBoolean(R.bool.default_instant_finish);
+        DEFAULT_AUTO_PLAY = res.getBoolean(R.bool.default_auto_play);
         DEFAULT_CURRENT_GAME = res.getInteger(R.integer.default_current_game);
         DEFAULT_MENU_COLUMNS_LANDSCAPE = res.getString(R.string.default_menu_columns_landscape);
         DEFAULT_MENU_COLUMNS_PORTRAIT = res.getString(R.string.default_menu_columns_portrait);
@@ -262,11 +299,14 @@ public class SharedData {
         GAME_WON = res.getString(R.string.game_won);
         GAME_NUMBER_OF_WON_GAMES = res.getString(R.string.game_number_of_won_games);
         GAME_NUMBER_OF_PLAYED_GAMES = res.getString(R.string.game_number_of_played_games);
+        GAME_NUMBER_OF_DEAD_ENDS = res.getString(R.string.game_number_of_dead_ends);
+        GAME_DEAD_END_RECORDED = res.getString(R.string.game_dead_end_recorded);
         GAME_RANDOM_CARDS = res.getString(R.string.game_random_cards);
         GAME_FIRST_RUN = res.getString(R.string.game_first_run);
         GAME_MOVED_FIRST_CARD = res.getString(R.string.game_moved_first_card);
 
         RESTART_DIALOG = res.getString(R.string.restart_dialog);
+        DEAD_END_DIALOG = res.getString(R.string.dead_end_dialog);
         CANFIELD_START_CARD_VALUE = res.getString(R.string.canfield_start_value);
         SCORE = res.getString(R.string.score);
         SAVED_SCORES = res.getString(R.string.saved_scores);
@@ -274,6 +314,7 @@ public class SharedData {
         RECORD_LIST_ENTRY = res.getString(R.string.record_list_entry);
         RECORD_LIST_ENTRIES_SIZE = res.getString(R.string.record_list_entries_size);
         FLIP_CARD = res.getString(R.string.flip_card);
+        UNDO_POINTS = res.getString(R.string.undo_points);
         ORIGIN = res.getString(R.string.origin);
         CARD = res.getString(R.string.card);
         CARDS = res.getString(R.string.cards);
@@ -356,7 +397,7 @@ public class SharedData {
       * moves a card to a stack by doing this:
       * - change the score according to the cards
       * - add the cards to the record list
-      * - move every card one by one
+      * - move every card one by one, the stacks update their layout once after all cards moved
       * - bring the moving cards to front
       * - and start handlers to call some methods
       *
@@ -382,6 +423,10 @@ public class SharedData {
             scores.move(cards, destinations);
         }
 
+        performanceMonitor.onMoveToStack();
+        autoCompleteSolver.cancel();
+        Stack.beginRelayoutBatch();
+
         for (int i = 0; i < cards.size(); i++) {
             if (cards.get(i).getStack() == destinations.get(i))                                     //this means to flip a card
                 cards.get(i).flip();
@@ -391,14 +436,11 @@ public class SharedData {
             }
         }
 
-        for (Card card : cards) {
-            card.view.bringToFront();
-        }
+        Stack.endRelayoutBatch();
 
-        //following stuff in handlers, because they should wait until possible card movements are over.
+        //the tests after a movement wait until the card animations are over
         if (option == 0) {
-            testAfterMoveHandler.sendEmptyMessageDelayed(0, 100);
-            testIfWonHandler.sendEmptyMessageDelayed(0, 200);
+            postMovePipeline.afterMove();
         }
     }
 
@@ -577,6 +619,7 @@ public class SharedData {
      */
     public static void putSharedInt(String name, int value) {
         savedSharedData.edit().putInt(name, value).apply();
+        updateSettings();
     }
 
     /**
@@ -587,6 +630,7 @@ public class SharedData {
      */
     public static void putSharedString(String name, String value) {
         savedSharedData.edit().putString(name, value).apply();
+        updateSettings();
     }
 
     /**
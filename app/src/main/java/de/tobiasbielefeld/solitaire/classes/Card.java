@@ -40,7 +40,9 @@ public class Card {
     private int value;                                                                              //1=ace 2,3,4,5,6,7,8,9,10, 11=joker 12=queen 13=king
     private Stack stack;                                                                            //saves the stack where the card is placed
     private int id;                                                                                 //internal id
+    int indexOnStack;                                                                               //position on the current stack, only changed by the stack class
     private boolean isUp;                                                                           //indicates if the card is placed upwards or backwards
+    private boolean lifted;                                                                         //selected by the player, drawn above the other cards
     private PointF oldLocation = new PointF();                                                      //old location so cards can be moved back if they can't placed on a new stack
 
     /**
@@ -65,7 +67,7 @@ public class Card {
      * use another row in the bitmap file.
      */
     public static void updateCardDrawableChoice() {
-        boolean fourColors = getSharedBoolean(PREF_KEY_4_COLOR_MODE, DEFAULT_4_COLOR_MODE);
+        boolean fourColors = settings.fourColorMode;
 
         for (int i = 0; i < 13; i++) {
             drawables[i] = bitmaps.getCardFront(i, fourColors ? 1 : 0);
@@ -88,7 +90,7 @@ public class Card {
      */
     public static void updateCardBackgroundChoice() {
 
-        int position = getSharedInt(CARD_BACKGROUND, DEFAULT_CARD_BACKGROUND) - 1;
+        int position = settings.cardBackground - 1;
         background = bitmaps.getCardBack(position % 8, position / 8);
 
         if (cards != null) {
@@ -133,6 +135,13 @@ public class Card {
         view.setImageBitmap(drawables[(color - 1) * 13 + value - 1]);
     }
 
+    /**
+     * @return The bitmap the card currently shows, the front or the background
+     */
+    public Bitmap getBitmap() {
+        return isUp ? drawables[(color - 1) * 13 + value - 1] : background;
+    }
+
     /**
      * Sets the card background, there is only one background for all cards.
      */
@@ -149,14 +158,15 @@ public class Card {
     }
 
     /**
-     * Moves a card to the given coordinates (if not already there). This will use a translate
-     * Animation and no interaction with cards/buttons is possible during the movement.
+     * Moves a card to the given coordinates (if not already there or already moving there).
+     * This will use a translate Animation and no interaction with cards/buttons is possible
+     * during the movement.
      *
      * @param pX The x-coordinate of the destination
      * @param pY The y-coordinate of the destination
      */
     public void setLocation(float pX, float pY) {
-        if (view.getX() != pX || view.getY() != pY)
+        if (view.getDestinationX() != pX || view.getDestinationY() != pY)
             animate.moveCard(this, pX, pY);
     }
 
@@ -167,7 +177,6 @@ public class Card {
      * @param pY The y-coordinate of the destination
      */
     public void setLocationWithoutMovement(float pX, float pY) {
-        view.bringToFront();
         view.setX(pX);
         view.setY(pY);
     }
@@ -193,7 +202,7 @@ public class Card {
      * Sets the direction to up and updates the drawable.
      */
     public void flipUp() {
-        isUp = true;
+        setUp(true);
         setCardFront();
     }
 
@@ -201,7 +210,7 @@ public class Card {
      * Sets the direction to down and updates the drawable.
      */
     public void flipDown() {
-        isUp = false;
+        setUp(false);
         setCardBack();
     }
 
@@ -222,17 +231,35 @@ public class Card {
      */
     public void flipWithAnim() {
         if (isUp()) {
-            isUp = false;
+            setUp(false);
             scores.undo(this, getStack());
             animate.flipCard(this, false);
         } else {
-            isUp = true;
+            setUp(true);
             scores.move(this, getStack());
             recordList.addFlip(this);
             animate.flipCard(this, true);
         }
     }
 
+    /**
+     * Changes the direction and tells the stack of the card about it, so it can update the number
+     * of faced down cards.
+     *
+     * @param value True to face the card up, false to face it down
+     */
+    private void setUp(boolean value) {
+        if (isUp == value) {
+            return;
+        }
+
+        isUp = value;
+
+        if (stack != null && stack.getIndexOfCard(this) != -1) {
+            stack.onCardFlipped(this);
+        }
+    }
+
     /**
      * Tests if this card can be placed on a stack:
      * Only possible if: the cardTest returns true, the card and the top card on the destination are
@@ -301,4 +328,29 @@ public class Card {
     public int getStackId(){
         return stack.getId();
     }
+
+    /**
+     * Lifts the card above the other cards while it is selected, or puts it back.
+     *
+     * @param lifted True to lift the card, false to put it back
+     */
+    public void setLifted(boolean lifted) {
+        this.lifted = lifted;
+        updateZIndex();
+    }
+
+    /**
+     * Derives the draw order of the card from its stack and position (see CustomRelativeLayout).
+     * Called by the stack when the position changes and by the view when an animation starts or
+     * ends.
+     */
+    public void updateZIndex() {
+        long zIndex = stack == null ? 0 : CustomRelativeLayout.getZIndex(stack.getId(), indexOnStack);
+
+        if (lifted || view.isAnimating()) {
+            zIndex += CustomRelativeLayout.Z_INDEX_LIFTED;
+        }
+
+        view.setZIndex(zIndex);
+    }
 }
\ No newline at end of file
@@ -19,6 +19,10 @@
 package de.tobiasbielefeld.solitaire.classes;
 
 import android.content.Context;
+import android.util.AttributeSet;
+import android.view.animation.Animation;
+
+import static de.tobiasbielefeld.solitaire.SharedData.*;
 
 /**
  * Custom image view to prevent bugs. Setting an animation listener to the translate anim to move
@@ -40,6 +44,7 @@ public class CustomImageView extends android.support.v7.widget.AppCompatImageVie
     private float destX, destY;
 
     private boolean isCard, isStack;
+    private long zIndex = 0;                                                                        //draw order in the custom relative layout, higher values are drawn above lower ones
 
     public enum Object{
         CARD, STACK
@@ -49,6 +54,10 @@ public class CustomImageView extends android.support.v7.widget.AppCompatImageVie
         super(context);
     }
 
+    public CustomImageView(Context context, AttributeSet attrs) {
+        super(context, attrs);
+    }
+
     /*
      * Sets the necessery data to this object. The ontouchListener is set to all image Views, because
      * the tap-to-select movement needs that.
@@ -68,10 +77,24 @@ public class CustomImageView extends android.support.v7.widget.AppCompatImageVie
         }
     }
 
+    /**
+     * Marks the view as animating right away, not only when the animation starts with the next
+     * frame. Otherwise the post move tests could run before the movement has even started.
+     * Hidden views never start their animation, so they don't get marked.
+     */
+    @Override
+    public void startAnimation(Animation animation) {
+        if (isShown()) {
+            setAnimating(true);
+        }
+
+        super.startAnimation(animation);
+    }
+
     @Override
     protected void onAnimationStart() {
         super.onAnimationStart();
-        animating = true;
+        setAnimating(true);
     }
 
     /**
@@ -80,7 +103,6 @@ public class CustomImageView extends android.support.v7.widget.AppCompatImageVie
     @Override
     protected void onAnimationEnd() {
         super.onAnimationEnd();
-        animating = false;
 
         if (moveAtEnd) {
             moveAtEnd = false;
@@ -88,6 +110,10 @@ public class CustomImageView extends android.support.v7.widget.AppCompatImageVie
             setX(destX);
             setY(destY);
         }
+
+        //the counter has to be decremented first, so the monitor knows if this was the last animation
+        setAnimating(false);
+        performanceMonitor.onCardAnimationEnd();
     }
 
     /**
@@ -102,15 +128,78 @@ public class CustomImageView extends android.support.v7.widget.AppCompatImageVie
         destY = pY;
     }
 
+    /**
+     * @return The X-coordinate where the view will be after the current movement, or the current
+     * one if it isn't moving
+     */
+    public float getDestinationX(){
+        return moveAtEnd ? destX : getX();
+    }
+
+    /**
+     * @return The Y-coordinate where the view will be after the current movement, or the current
+     * one if it isn't moving
+     */
+    public float getDestinationY(){
+        return moveAtEnd ? destY : getY();
+    }
+
     public void stopAnim(){
-        animating = false;
+        setAnimating(false);
+        moveAtEnd = false;
         clearAnimation();
     }
 
+    /**
+     * Updates the animating flag and reports changes to the animation counter of the Animate class.
+     *
+     * @param value True if the view starts animating, false if it stopped
+     */
+    private void setAnimating(boolean value){
+        if (animating == value) {
+            return;
+        }
+
+        animating = value;
+
+        if (value) {
+            animate.onCardAnimationStart();
+        } else {
+            animate.onCardAnimationEnd();
+        }
+
+        //moving cards are drawn above the other cards
+        if (isCard && cards[getId()].view == this) {
+            cards[getId()].updateZIndex();
+        }
+    }
+
     public boolean isAnimating(){
         return animating;
     }
 
+    /**
+     * Sets the draw order in the custom relative layout. If it changed, the layout sorts its
+     * children again before the next frame.
+     *
+     * @param value The new z-index
+     */
+    public void setZIndex(long value){
+        if (zIndex == value) {
+            return;
+        }
+
+        zIndex = value;
+
+        if (getParent() instanceof CustomRelativeLayout) {
+            ((CustomRelativeLayout) getParent()).requestZOrderUpdate();
+        }
+    }
+
+    public long getZIndex(){
+        return zIndex;
+    }
+
     public boolean belongsToCard(){
         return isCard;
     }
@@ -0,0 +1,136 @@
+/*
+ * Copyright (C) 2016  Tobias Bielefeld
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * If you want to contact me, send me an e-mail at tobias.bielefeld@gmail.com
+ */
+
+package de.tobiasbielefeld.solitaire.classes;
+
+import android.content.Context;
+import android.support.v4.view.ViewCompat;
+import android.util.AttributeSet;
+import android.view.View;
+import android.widget.RelativeLayout;
+
+/**
+ * Layout of the game, which contains the stacks and cards. Calling bringToFront() on a view of
+ * the default RelativeLayout re-orders the child list and requests a new layout every time, which
+ * gets expensive if for example a run of 13 cards is moved.
+ *
+ * This layout uses a z-index model instead: Every card view gets a draw order derived from the id
+ * of its stack and its position on it (see getZIndex()), so cards on higher stacks are drawn above
+ * lower ones and every card above the cards below it on the same stack. The highlight is drawn
+ * above every card lying on a stack, and cards which are moving or selected get lifted above
+ * everything else. The child list gets sorted by these indices once before the next frame is
+ * drawn, when at least one index changed. The child order is also used for touch events, so the
+ * card drawn on top is still the one which gets touched.
+ */
+
+public class CustomRelativeLayout extends RelativeLayout {
+
+    public final static long Z_INDEX_HIGHLIGHT = 1L << 24;                                          //above every card lying on a stack
+    public final static long Z_INDEX_LIFTED = 1L << 25;                                             //added to the index of moving or selected cards
+    private final static int Z_INDEX_STACK_RANGE = 256;                                             //indices reserved for the cards of one stack
+
+    private boolean zOrderUpdatePending = false;
+    private View[] sortedChildren = new View[0];                                                    //reused array to sort the children
+
+    private Runnable applyZOrder = new Runnable() {
+        @Override
+        public void run() {
+            applyZOrder();
+        }
+    };
+
+    public CustomRelativeLayout(Context context) {
+        super(context);
+    }
+
+    public CustomRelativeLayout(Context context, AttributeSet attrs) {
+        super(context, attrs);
+    }
+
+    public CustomRelativeLayout(Context context, AttributeSet attrs, int defStyleAttr) {
+        super(context, attrs, defStyleAttr);
+    }
+
+    /**
+     * @param stackId The id of the stack the card is on
+     * @param index The position of the card on the stack
+     * @return The draw order of a card lying on the given position
+     */
+    public static long getZIndex(int stackId, int index) {
+        return (long) (stackId + 1) * Z_INDEX_STACK_RANGE + index;
+    }
+
+    /**
+     * Schedules the sorting of the children for the next frame, if not already done. Called by
+     * the custom image views when their z-index changes.
+     */
+    void requestZOrderUpdate() {
+        if (!zOrderUpdatePending) {
+            zOrderUpdatePending = true;
+            ViewCompat.postOnAnimation(this, applyZOrder);
+        }
+    }
+
+    /**
+     * Sorts the children by their z-index. Because only a few views change their index between
+     * two frames, the list is nearly sorted, so a stable insertion sort is fast here. If the order
+     * changed, the children are detached and attached again in the new order. This doesn't
+     * request a new layout, because the cards and stacks are positioned with setX() and setY().
+     */
+    private void applyZOrder() {
+        zOrderUpdatePending = false;
+        int count = getChildCount();
+        boolean changed = false;
+
+        if (sortedChildren.length < count) {
+            sortedChildren = new View[count];
+        }
+
+        for (int i = 0; i < count; i++) {
+            View child = getChildAt(i);
+            long zIndex = getZIndex(child);
+            int j = i - 1;
+
+            while (j >= 0 && getZIndex(sortedChildren[j]) > zIndex) {
+                sortedChildren[j + 1] = sortedChildren[j];
+                j--;
+                changed = true;
+            }
+
+            sortedChildren[j + 1] = child;
+        }
+
+        if (changed) {
+            detachAllViewsFromParent();
+
+            for (int i = 0; i < count; i++) {
+                attachViewToParent(sortedChildren[i], i, sortedChildren[i].getLayoutParams());
+            }
+
+            invalidate();
+        }
+
+        for (int i = 0; i < count; i++) {
+            sortedChildren[i] = null;
+        }
+    }
+
+    private long getZIndex(View view) {
+        return view instanceof CustomImageView ? ((CustomImageView) view).getZIndex() : 0;
+    }
+}
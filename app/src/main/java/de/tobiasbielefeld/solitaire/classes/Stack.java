@@ -25,6 +25,7 @@ import android.widget.ImageView;
 import android.widget.RelativeLayout;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 
 import de.tobiasbielefeld.solitaire.R;
 
@@ -42,12 +43,21 @@ public class Stack {
             background4, background5, background6, background7, background8, background9, background10,
             background11, background12, background13, arrowLeft, arrowRight, backgroundTransparent;
     public CustomImageView view;                                                                          //Background of the stack
-    public ArrayList<Card> currentCards = new ArrayList<>();                                        //the array of cards on the stack
+    private int[] cardIds = new int[16];                                                            //ids of the cards on the stack, from the bottom to the top. Grows if needed
+    private int size = 0;                                                                           //number of cards on the stack
+    private int faceDownCount = 0;                                                                  //number of cards on the stack which are faced down
+    private int[] sameColorRun = new int[16];                                                       //length of the descending run ending at each position, with the same color
+    private int[] alternatingColorRun = new int[16];                                                //same, but with alternating colors
+    private int[] descendingRun = new int[16];                                                      //same, the color doesn't matter
     private int id;                                                                                 //id: 0 to 6 tableau. 7 to 10 foundations. 11 and 12 discard and Main stack
     private float spacing;                                                                          //direction in which the cards on the stacks are ordered (top, down, left, right)
     private SpacingDirection spacingDirection = SpacingDirection.NONE;
     private ArrowDirection arrowDirection;
     private float spacingMax;
+    private boolean relayoutPending;                                                                //true if this stack waits for the end of the current relayout batch
+
+    private static int relayoutBatchDepth = 0;                                                      //greater than zero while cards are moved in a batch
+    private static ArrayList<Stack> pendingRelayouts = new ArrayList<>();                           //stacks which were changed during the current batch
 
     public enum SpacingDirection{
         NONE, UP, LEFT, RIGHT, DOWN
@@ -61,7 +71,15 @@ public class Stack {
         this.id = id;
     }
 
+    /**
+     * Loads the stack background bitmaps. They don't depend on any setting, so they are only
+     * loaded once. That also keeps the bitmaps saved in the layout cache valid.
+     */
     public static void loadBackgrounds() {
+        if (backgroundDefault != null) {
+            return;
+        }
+
         backgroundDefault = bitmaps.getStackBackground(0, 0);
         backgroundTalon = bitmaps.getStackBackground(1, 0);
         background1 = bitmaps.getStackBackground(2, 0);
@@ -86,7 +104,12 @@ public class Stack {
      * deletes the reference to the current cards, so the stack will be empty.
      */
     public void reset() {                                                                           //removes all cards
-        currentCards.clear();
+        int removedCards = size;
+        int removedFaceDownCards = faceDownCount;
+
+        size = 0;
+        faceDownCount = 0;
+        currentGame.updateCounters(this, -removedCards, -removedFaceDownCards);
     }
 
     /**
@@ -96,10 +119,21 @@ public class Stack {
      * @param card The card to add.
      */
     public void addCard(Card card) {
+        if (size == cardIds.length) {
+            cardIds = Arrays.copyOf(cardIds, size * 2);
+            sameColorRun = Arrays.copyOf(sameColorRun, size * 2);
+            alternatingColorRun = Arrays.copyOf(alternatingColorRun, size * 2);
+            descendingRun = Arrays.copyOf(descendingRun, size * 2);
+        }
+
         card.setStack(this);
-        currentCards.add(card);
+        card.indexOnStack = size;
+        cardIds[size++] = card.getId();
+        card.updateZIndex();
+        updateRuns(size - 1);
+        updateCounters(1, card.isUp() ? 0 : 1);
 
-        updateSpacing();
+        requestRelayout();
 
         if (currentGame.hasMainStack() && id >= currentGame.getMainStack().getId()) {
             card.flipDown();
@@ -109,12 +143,141 @@ public class Stack {
     }
 
     /**
-     * Removes a card from this stack. Spacings will be updated then.
+     * Removes a card from this stack. Spacings will be updated then. Removing the top card needs
+     * no copying, otherwise the cards above get shifted down and their index updated.
+     *
      * @param card The card to remove
      */
     public void removeCard(Card card) {
-        currentCards.remove(currentCards.indexOf(card));
-        updateSpacing();
+        int index = getIndexOfCard(card);
+
+        if (index == -1) {
+            return;
+        }
+
+        size--;
+
+        for (int i = index; i < size; i++) {
+            cardIds[i] = cardIds[i + 1];
+            cards[cardIds[i]].indexOnStack = i;
+            cards[cardIds[i]].updateZIndex();
+            updateRuns(i);
+        }
+
+        updateCounters(-1, card.isUp() ? 0 : -1);
+
+        requestRelayout();
+    }
+
+    /**
+     * Calculates the length of the descending runs which end at the given position. The runs of
+     * the card below have to be correct already.
+     *
+     * @param index The position of the card
+     */
+    private void updateRuns(int index) {
+        sameColorRun[index] = 1;
+        alternatingColorRun[index] = 1;
+        descendingRun[index] = 1;
+
+        if (index == 0) {
+            return;
+        }
+
+        Card bottomCard = cards[cardIds[index - 1]];
+        Card upperCard = cards[cardIds[index]];
+
+        if (bottomCard.getValue() != upperCard.getValue() + 1) {
+            return;
+        }
+
+        descendingRun[index] = descendingRun[index - 1] + 1;
+
+        if (bottomCard.getColor() == upperCard.getColor()) {
+            sameColorRun[index] = sameColorRun[index - 1] + 1;
+        }
+
+        if (bottomCard.getColor() % 2 != upperCard.getColor() % 2) {
+            alternatingColorRun[index] = alternatingColorRun[index - 1] + 1;
+        }
+    }
+
+    /**
+     * @return Number of cards from the top which are descending in value with the same color
+     */
+    public int getSameColorRun() {
+        return size == 0 ? 0 : sameColorRun[size - 1];
+    }
+
+    /**
+     * @return Number of cards from the top which are descending in value with alternating colors
+     */
+    public int getAlternatingColorRun() {
+        return size == 0 ? 0 : alternatingColorRun[size - 1];
+    }
+
+    /**
+     * @return Number of cards from the top which are descending in value, the color doesn't matter
+     */
+    public int getDescendingRun() {
+        return size == 0 ? 0 : descendingRun[size - 1];
+    }
+
+    /**
+     * Called from a card on this stack after it was flipped.
+     *
+     * @param card The flipped card
+     */
+    public void onCardFlipped(Card card) {
+        updateCounters(0, card.isUp() ? -1 : 1);
+    }
+
+    private void updateCounters(int cardsDelta, int faceDownDelta) {
+        faceDownCount += faceDownDelta;
+        currentGame.updateCounters(this, cardsDelta, faceDownDelta);
+    }
+
+    /**
+     * Starts a relayout batch. Until the matching endRelayoutBatch() call, stacks which get cards
+     * added or removed only remember that they need a new layout, so a stack touched multiple
+     * times (like in a movement of several cards) will only be updated once.
+     */
+    public static void beginRelayoutBatch() {
+        relayoutBatchDepth++;
+    }
+
+    /**
+     * Ends a relayout batch and updates every stack which was changed in the batch.
+     */
+    public static void endRelayoutBatch() {
+        if (--relayoutBatchDepth > 0) {
+            return;
+        }
+
+        relayoutBatchDepth = 0;
+        boolean leftHandedMode = settings.leftHandedMode;
+
+        for (int i = 0; i < pendingRelayouts.size(); i++) {
+            Stack stack = pendingRelayouts.get(i);
+            stack.relayoutPending = false;
+            stack.relayout(leftHandedMode);
+        }
+
+        pendingRelayouts.clear();
+    }
+
+    /**
+     * Updates the layout now, or marks this stack for the end of the current batch.
+     */
+    private void requestRelayout() {
+        if (relayoutBatchDepth > 0) {
+            if (!relayoutPending) {
+                relayoutPending = true;
+                pendingRelayouts.add(this);
+            }
+        } else {
+            relayout(settings.leftHandedMode);
+        }
     }
 
     /**
@@ -125,7 +288,7 @@ public class Stack {
      */
     public Card getTopCard() throws ArrayIndexOutOfBoundsException{
         if (!isEmpty()) {
-            return currentCards.get(currentCards.size() - 1);
+            return cards[cardIds[size - 1]];
         } else {
             throw new ArrayIndexOutOfBoundsException("Empty Stack, check with isEmpty() before!");
         }
@@ -140,7 +303,7 @@ public class Stack {
      */
     public Card getCardFromTop(int index) throws ArrayIndexOutOfBoundsException{
         if (!isEmpty()) {
-            return currentCards.get(currentCards.size() - 1 - index);
+            return getCard(size - 1 - index);
         } else {
             throw new ArrayIndexOutOfBoundsException("Empty Stack, check with isEmpty() before!");
         }
@@ -155,25 +318,21 @@ public class Stack {
      * @return True if the location is on the stack, else false
      */
     public boolean isOnLocation(float pX, float pY) {
-        PointF topPoint = getPosition(0);
-
         switch (spacingDirection) {
             case NONE: default:
                 return pX >= view.getX() && pX <= view.getX() + Card.width
                         && pY >= view.getY() && pY <= view.getY() + Card.height;
             case DOWN:
-                topPoint.y += Card.height;
                 return pX >= view.getX() && pX <= view.getX() + Card.width
-                        && pY >= view.getY() && pY <= topPoint.y;
+                        && pY >= view.getY() && pY <= getPositionY(0) + Card.height;
             case UP:
                 return pX >= view.getX() && pX <= view.getX() + Card.width
-                        && pY >= topPoint.y && pY <= view.getY() + Card.height;
+                        && pY >= getPositionY(0) && pY <= view.getY() + Card.height;
             case LEFT:
-                return pX >= topPoint.x && pX <= view.getX() + Card.width
+                return pX >= getPositionX(0) && pX <= view.getX() + Card.width
                         && pY >= view.getY() && pY <= view.getY() + Card.height;
             case RIGHT:
-                topPoint.x += Card.width;
-                return pX >= view.getX() && pX <= topPoint.x
+                return pX >= view.getX() && pX <= getPositionX(0) + Card.width
                         && pY >= view.getY() && pY <= view.getY() + Card.height;
         }
     }
@@ -185,17 +344,41 @@ public class Stack {
      * @return The position as a point
      */
     public PointF getPosition(int offset) {
+        return getPosition(offset, new PointF());
+    }
+
+    /**
+     * Same as getPosition(int), but writes the position in the given point instead of creating
+     * a new one.
+     *
+     * @param offset The index of the new card as seen from the current top card
+     * @param out The point to save the position in
+     * @return The given point
+     */
+    public PointF getPosition(int offset, PointF out) {
+        out.set(getPositionX(offset), getPositionY(offset));
+        return out;
+    }
+
+    private float getPositionX(int offset) {
         switch (spacingDirection) {
-            case NONE: default:
-                return new PointF(view.getX(), view.getY());
-            case DOWN:
-                return new PointF(view.getX(), view.getY() + spacing * (currentCards.size() + offset));
-            case UP:
-                return new PointF(view.getX(), view.getY() - spacing * (currentCards.size() + offset));
             case LEFT:
-                return new PointF(view.getX() - spacing * (currentCards.size() + offset), view.getY());
+                return view.getX() - spacing * (size + offset);
             case RIGHT:
-                return new PointF(view.getX() + spacing * (currentCards.size() + offset), view.getY());
+                return view.getX() + spacing * (size + offset);
+            default:
+                return view.getX();
+        }
+    }
+
+    private float getPositionY(int offset) {
+        switch (spacingDirection) {
+            case DOWN:
+                return view.getY() + spacing * (size + offset);
+            case UP:
+                return view.getY() - spacing * (size + offset);
+            default:
+                return view.getY();
         }
     }
 
@@ -203,10 +386,10 @@ public class Stack {
      * Save which cards are currently on this stack as a string list.
      */
     public void save() {
-        ArrayList<Integer> list = new ArrayList<>();
+        ArrayList<Integer> list = new ArrayList<>(size);
 
-        for (Card card : currentCards)
-            list.add(card.getId());
+        for (int i = 0; i < size; i++)
+            list.add(cardIds[i]);
 
         putIntList(STACK + id, list);
     }
@@ -221,73 +404,95 @@ public class Stack {
 
         for (Integer i : list) {
             addCard(cards[i]);
-            cards[i].view.bringToFront();
         }
     }
 
     /**
-     * Updates the spacing according to the direction. Left handed mode will affect the direction
-     * for left and right direction.
+     * Updates the spacing according to the direction and computes the new position of every card
+     * on the stack. Cards are only moved if their target position changed, so adding a card on
+     * top of a stack won't start animations for the cards below it, as long as the spacing stays
+     * the same. Left handed mode will affect the direction for left and right direction.
+     *
+     * @param leftHandedMode Shows if the left handed mode is enabled
      */
-    private void updateSpacing() {
+    private void relayout(boolean leftHandedMode) {
+        float startX = view.getX(), startY = view.getY();
+        float stepX = 0, stepY = 0;
+
         switch (spacingDirection) {
             case NONE: default:
-                if (!isEmpty())
-                    getTopCard().setLocation(view.getX(), view.getY());
-                break;
-            case DOWN:
-                spacing = min((spacingMax - view.getY()) / (currentCards.size() + 1), defaultSpacing);
-
-                //PointF currentPos = new PointF(view.getX(), view.getY());
-                for (int i = 0; i < currentCards.size(); i++) {
+                //only the cards added since the last layout need to move, the ones below are already there
+                for (int i = size - 1; i >= 0; i--) {
+                    Card card = cards[cardIds[i]];
 
-                    currentCards.get(i).setLocation(view.getX(), view.getY() + spacing * i);
-                    /*currentCards.get(i).setLocation(currentPos.x, currentPos.y);
+                    if (i < size - 1 && card.view.getDestinationX() == startX && card.view.getDestinationY() == startY)
+                        break;
 
-
-                    currentPos.y+=currentCards.get(i).isUp() ? spacing : defaultSpacing/2;*/
+                    card.setLocation(startX, startY);
                 }
 
+                updateIndex();
+                return;
+            case DOWN:
+                spacing = min((spacingMax - startY) / (size + 1), defaultSpacing);
+                stepY = spacing;
                 break;
             case UP:
-                spacing = min((view.getY() - spacingMax) / (currentCards.size() + 1), defaultSpacing);
-                for (int i = 0; i < currentCards.size(); i++)
-                    currentCards.get(i).setLocation(view.getX(), view.getY() - spacing * i);
+                spacing = min((startY - spacingMax) / (size + 1), defaultSpacing);
+                stepY = -spacing;
                 break;
             case LEFT:
-                if (getSharedBoolean(PREF_KEY_LEFT_HANDED_MODE, false)) {
-                    spacing = min((spacingMax - view.getX()) / (currentCards.size() + 1), defaultSpacing);
-                    for (int i = 0; i < currentCards.size(); i++)
-                        currentCards.get(i).setLocation(view.getX() + spacing * i, view.getY());
+                if (leftHandedMode) {
+                    spacing = min((spacingMax - startX) / (size + 1), defaultSpacing);
+                    stepX = spacing;
                 } else {
-                    spacing = min((view.getX() - spacingMax) / (currentCards.size() + 1), defaultSpacing);
-                    for (int i = 0; i < currentCards.size(); i++)
-                        currentCards.get(i).setLocation(view.getX() - spacing * i, view.getY());
+                    spacing = min((startX - spacingMax) / (size + 1), defaultSpacing);
+                    stepX = -spacing;
                 }
                 break;
             case RIGHT:
-                if (getSharedBoolean(PREF_KEY_LEFT_HANDED_MODE, false)) {
-                    spacing = min((view.getX() - spacingMax) / (currentCards.size() + 1), defaultSpacing);
-                    for (int i = 0; i < currentCards.size(); i++)
-                        currentCards.get(i).setLocation(view.getX() - spacing * i, view.getY());
+                if (leftHandedMode) {
+                    spacing = min((startX - spacingMax) / (size + 1), defaultSpacing);
+                    stepX = -spacing;
                 } else {
-                    spacing = min((spacingMax - view.getX()) / (currentCards.size() + 1), defaultSpacing);
-                    for (int i = 0; i < currentCards.size(); i++)
-                        currentCards.get(i).setLocation(view.getX() + spacing * i, view.getY());
+                    spacing = min((spacingMax - startX) / (size + 1), defaultSpacing);
+                    stepX = spacing;
                 }
                 break;
         }
+
+        for (int i = 0; i < size; i++) {
+            cards[cardIds[i]].setLocation(startX + stepX * i, startY + stepY * i);
+        }
+
+        updateIndex();
+    }
+
+    /**
+     * Updates the rectangle of this stack in the stack index. It goes from the stack to the
+     * position the top card will have after its movement, so it is already correct while the
+     * cards are still moving.
+     */
+    public void updateIndex() {
+        float x = view.getX(), y = view.getY();
+
+        if (isEmpty() || spacingDirection == SpacingDirection.NONE) {
+            stackIndex.update(id, x, y, x + Card.width, y + Card.height);
+        } else {
+            float topX = getTopCard().view.getDestinationX();
+            float topY = getTopCard().view.getDestinationY();
+
+            stackIndex.update(id, min(x, topX), min(y, topY), max(x, topX) + Card.width, max(y, topY) + Card.height);
+        }
     }
 
     /**
      * @return the first card which is faced up
      */
     public Card getFirstUpCard() {
-        for (Card card : currentCards)
-            if (card.isUp())
-                return card;
+        int index = getFirstUpCardPos();
 
-        return null;
+        return index == -1 ? null : cards[cardIds[index]];
     }
 
     /**
@@ -295,8 +500,8 @@ public class Stack {
      * faced up.
      */
     public int getFirstUpCardPos() {
-        for (int i = 0; i < currentCards.size(); i++) {
-            if (currentCards.get(i).isUp())
+        for (int i = 0; i < size; i++) {
+            if (cards[cardIds[i]].isUp())
                 return i;
         }
 
@@ -310,14 +515,14 @@ public class Stack {
         if (arrowDirection!=null) {
             switch (arrowDirection) {
                 case LEFT:
-                    if (getSharedBoolean(PREF_KEY_LEFT_HANDED_MODE, DEFAULT_LEFT_HANDED_MODE)) {
+                    if (settings.leftHandedMode) {
                         view.setImageBitmap(Stack.arrowRight);
                     } else {
                         view.setImageBitmap(Stack.arrowLeft);
                     }
                     break;
                 case RIGHT:
-                    if (getSharedBoolean(PREF_KEY_LEFT_HANDED_MODE, DEFAULT_LEFT_HANDED_MODE)) {
+                    if (settings.leftHandedMode) {
                         view.setImageBitmap(Stack.arrowLeft);
                     } else {
                         view.setImageBitmap(Stack.arrowRight);
@@ -345,14 +550,14 @@ public class Stack {
                 spacingMax = stack.getY() + Card.height;
                 break;
             case LEFT:
-                if (getSharedBoolean(PREF_KEY_LEFT_HANDED_MODE, false)) {
+                if (settings.leftHandedMode) {
                     spacingMax = stack.getX() - Card.width;
                 } else {
                     spacingMax = stack.getX() + Card.width;
                 }
                 break;
             case RIGHT:
-                if (getSharedBoolean(PREF_KEY_LEFT_HANDED_MODE, false)) {
+                if (settings.leftHandedMode) {
                     spacingMax = stack.getX() + Card.width;
                 } else {
                     spacingMax = stack.getX() - Card.width;
@@ -378,14 +583,14 @@ public class Stack {
                 spacingMax = 0;
                 break;
             case LEFT:
-                if (getSharedBoolean(PREF_KEY_LEFT_HANDED_MODE, false)) {
+                if (settings.leftHandedMode) {
                     spacingMax = layoutGame.getWidth() - Card.width;
                 } else {
                     spacingMax = 0;
                 }
                 break;
             case RIGHT:
-                if (getSharedBoolean(PREF_KEY_LEFT_HANDED_MODE, false)) {
+                if (settings.leftHandedMode) {
                     spacingMax = 0;
                 } else {
                     spacingMax = layoutGame.getWidth() - Card.width;
@@ -450,19 +655,52 @@ public class Stack {
     }
 
     public Card getCard(int index) {                                                                //get card from index
-        return currentCards.get(index);
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+
+        return cards[cardIds[index]];
+    }
+
+    /**
+     * @return A new list with the cards on this stack, from the bottom to the top
+     */
+    public ArrayList<Card> getCards() {
+        ArrayList<Card> list = new ArrayList<>(size);
+
+        for (int i = 0; i < size; i++) {
+            list.add(cards[cardIds[i]]);
+        }
+
+        return list;
     }
 
     public int getId() {                                                                            //gets the id
         return id;
     }
 
+    /**
+     * Every card saves its index on the stack, so this doesn't need to search the card.
+     *
+     * @param card The card to look for
+     * @return The index of the card, or -1 if it isn't on this stack
+     */
     public int getIndexOfCard(Card card) {
-        return currentCards.indexOf(card);
+        int index = card.indexOnStack;
+
+        if (card.getStack() == this && index < size && cardIds[index] == card.getId()) {
+            return index;
+        }
+
+        return -1;
     }
 
     public int getSize() {                                                                          //return how many cards are on the stack
-        return currentCards.size();
+        return size;
+    }
+
+    public int getFaceDownCount() {                                                                 //return how many cards on the stack are faced down
+        return faceDownCount;
     }
 
     public boolean isEmpty() {
@@ -473,6 +711,22 @@ public class Stack {
         spacingDirection = value;
     }
 
+    public SpacingDirection getSpacingDirection() {
+        return spacingDirection;
+    }
+
+    public float getSpacingMax() {
+        return spacingMax;
+    }
+
+    public void setSpacingMaxValue(float value) {
+        spacingMax = value;
+    }
+
+    public ArrowDirection getArrowDirection() {
+        return arrowDirection;
+    }
+
     public void setArrow(ArrowDirection direction) {
         arrowDirection = direction;
         applyArrow();
@@ -0,0 +1,259 @@
+/*
+ * Copyright (C) 2016  Tobias Bielefeld
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * If you want to contact me, send me an e-mail at tobias.bielefeld@gmail.com
+ */
+
+package de.tobiasbielefeld.solitaire.classes;
+
+import android.animation.Animator;
+import android.animation.AnimatorListenerAdapter;
+import android.animation.ValueAnimator;
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.RectF;
+import android.util.AttributeSet;
+import android.view.View;
+import android.view.animation.LinearInterpolator;
+
+import java.util.Random;
+
+/**
+ * Draws the win animation on a single view in the overlay of the game layout. Before, every card
+ * view got two translate animations and a handler polled until they were finished, which was
+ * slow in games with two decks. Now the card views are hidden and their bitmaps are drawn here,
+ * driven by one value animator: In the first half every card moves to the center of the screen,
+ * in the second half they fly out the screen borders with a small delay between each card.
+ *
+ * The animation has a fixed duration, so the end callback is always called at the same time.
+ */
+
+public class WinAnimationView extends View {
+
+    private final static long DURATION = 2400;                                                      //duration of the whole animation in milliseconds
+    private final static float MAX_DELAY = 0.4f;                                                    //maximum delay of a card in the second phase, as part of the phase duration
+
+    private Bitmap[] bitmaps = new Bitmap[0];
+    private float[] startX = new float[0], startY = new float[0];
+    private float[] endX = new float[0], endY = new float[0];
+    private Card[] animatedCards;
+    private float centerX, centerY;
+    private float progress = 0;
+
+    private ValueAnimator animator;
+    private Runnable onEnd;
+    private boolean canceled;
+    private Paint paint = new Paint(Paint.FILTER_BITMAP_FLAG);
+    private RectF rect = new RectF();
+
+    public WinAnimationView(Context context) {
+        super(context);
+    }
+
+    public WinAnimationView(Context context, AttributeSet attrs) {
+        super(context, attrs);
+    }
+
+    public WinAnimationView(Context context, AttributeSet attrs, int defStyleAttr) {
+        super(context, attrs, defStyleAttr);
+    }
+
+    /**
+     * Starts the animation. The start positions are the destinations of the cards (in case they
+     * are still moving), the end positions are spread over the screen borders like in the old
+     * animation. After that the card views get hidden.
+     *
+     * @param cards The cards to animate
+     * @param width The width of the game layout
+     * @param height The height of the game layout
+     * @param onEnd Runnable to call after the animation has finished
+     */
+    public void start(Card[] cards, int width, int height, Runnable onEnd) {
+        cancel();
+
+        int size = cards.length;
+        this.onEnd = onEnd;
+        animatedCards = cards;
+        canceled = false;
+        progress = 0;
+
+        if (bitmaps.length != size) {
+            bitmaps = new Bitmap[size];
+            startX = new float[size];
+            startY = new float[size];
+            endX = new float[size];
+            endY = new float[size];
+        }
+
+        centerX = width / 2 - Card.width / 2;
+        centerY = height / 2 - Card.height / 2;
+
+        int direction = 0;
+        int counter = 0;
+        Random rand = new Random();
+
+        for (int i = 0; i < size; i++) {
+            Card card = cards[i];
+            bitmaps[i] = card.getBitmap();
+            startX[i] = card.view.getDestinationX();
+            startY[i] = card.view.getDestinationY();
+
+            switch (direction) {
+                case 0:
+                default://right side
+                    endX[i] = width;
+                    endY[i] = counter;
+                    counter += Card.height;
+
+                    if (counter >= height) {
+                        direction = 1;
+                        counter = rand.nextInt(Card.height);
+                    }
+                    break;
+                case 1://bottom side
+                    endX[i] = counter;
+                    endY[i] = height + Card.height;
+                    counter += Card.width;
+
+                    if (counter >= width) {
+                        direction = 2;
+                        counter = rand.nextInt(Card.width);
+                    }
+                    break;
+                case 2://left side
+                    endX[i] = -Card.width;
+                    endY[i] = counter;
+                    counter += Card.height;
+
+                    if (counter >= height) {
+                        direction = 3;
+                        counter = rand.nextInt(Card.height);
+                    }
+                    break;
+                case 3://top side
+                    endX[i] = counter;
+                    endY[i] = -Card.height;
+                    counter += Card.width;
+
+                    if (counter >= width) {
+                        direction = 0;
+                        counter = rand.nextInt(Card.width);
+                    }
+                    break;
+            }
+
+            card.view.stopAnim();
+            card.view.setVisibility(INVISIBLE);
+        }
+
+        setVisibility(VISIBLE);
+
+        animator = ValueAnimator.ofFloat(0, 1);
+        animator.setDuration(DURATION);
+        animator.setInterpolator(new LinearInterpolator());
+        animator.addUpdateListener(new ValueAnimator.AnimatorUpdateListener() {
+            @Override
+            public void onAnimationUpdate(ValueAnimator animation) {
+                progress = (float) animation.getAnimatedValue();
+                invalidate();
+            }
+        });
+        animator.addListener(new AnimatorListenerAdapter() {
+            @Override
+            public void onAnimationEnd(Animator animation) {
+                finish();
+            }
+        });
+        animator.start();
+    }
+
+    /**
+     * Stops a running animation without calling the end runnable. The cards will still be placed
+     * outside the screen, like after a finished animation.
+     */
+    public void cancel() {
+        if (animator != null && animator.isRunning()) {
+            canceled = true;
+            animator.cancel();
+        }
+    }
+
+    public boolean isRunning() {
+        return animator != null && animator.isRunning();
+    }
+
+    /**
+     * Places the card views at the end positions and shows them again, so the next deal moves
+     * them from the screen borders like before. Then the bitmaps are released.
+     */
+    private void finish() {
+        setVisibility(GONE);
+
+        for (int i = 0; i < animatedCards.length; i++) {
+            animatedCards[i].view.setX(endX[i]);
+            animatedCards[i].view.setY(endY[i]);
+            animatedCards[i].view.setVisibility(VISIBLE);
+            bitmaps[i] = null;
+        }
+
+        animatedCards = null;
+        animator = null;
+
+        if (!canceled && onEnd != null) {
+            onEnd.run();
+        }
+
+        onEnd = null;
+    }
+
+    @Override
+    protected void onDraw(Canvas canvas) {
+        if (animatedCards == null) {
+            return;
+        }
+
+        for (int i = 0; i < bitmaps.length; i++) {
+            float x, y;
+
+            if (progress < 0.5f) {
+                float value = ease(progress * 2);
+                x = startX[i] + (centerX - startX[i]) * value;
+                y = startY[i] + (centerY - startY[i]) * value;
+            } else {
+                float delay = MAX_DELAY * i / bitmaps.length;
+                float value = ease(Math.max(0, Math.min(1, ((progress - 0.5f) * 2 - delay) / (1 - MAX_DELAY))));
+                x = centerX + (endX[i] - centerX) * value;
+                y = centerY + (endY[i] - centerY) * value;
+            }
+
+            if (bitmaps[i] != null) {
+                rect.set(x, y, x + Card.width, y + Card.height);
+                canvas.drawBitmap(bitmaps[i], null, rect, paint);
+            }
+        }
+    }
+
+    /**
+     * Accelerate-decelerate curve, the same one the old translate animations used.
+     *
+     * @param value The linear progress from 0 to 1
+     * @return The eased progress
+     */
+    private float ease(float value) {
+        return (float) (Math.cos((value + 1) * Math.PI) / 2.0f) + 0.5f;
+    }
+}
@@ -0,0 +1,68 @@
+/*
+ * Copyright (C) 2016  Tobias Bielefeld
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * If you want to contact me, send me an e-mail at tobias.bielefeld@gmail.com
+ */
+
+package de.tobiasbielefeld.solitaire.dialogs;
+
+import android.app.AlertDialog;
+import android.app.Dialog;
+import android.content.DialogInterface;
+import android.os.Bundle;
+import android.support.annotation.NonNull;
+import android.support.v4.app.DialogFragment;
+
+import de.tobiasbielefeld.solitaire.R;
+
+import static de.tobiasbielefeld.solitaire.SharedData.*;
+
+/**
+ * dialog shown when the game reached a dead end: offers to undo the last movement or to start a
+ * new game. The reason is given as a string resource in the arguments.
+ */
+
+public class DeadEndDialog extends DialogFragment {
+
+    public static final String REASON = "reason";
+
+    @Override
+    @NonNull
+    public Dialog onCreateDialog(Bundle savedInstanceState) {
+        AlertDialog.Builder builder = new AlertDialog.Builder(getActivity());
+
+        builder.setTitle(getArguments().getInt(REASON))
+                .setItems(R.array.dead_end_menu, new DialogInterface.OnClickListener() {
+                    public void onClick(DialogInterface dialog, int which) {
+                        // "which" argument contains index of selected item
+                        switch (which) {
+                            case 0:
+                                recordList.undo();
+                                break;
+                            case 1:
+                                gameLogic.newGame();
+                                break;
+                        }
+                    }
+                })
+                .setNegativeButton(R.string.dead_end_continue, new DialogInterface.OnClickListener() {
+                    public void onClick(DialogInterface dialog, int id) {
+                        //just continue playing
+                    }
+                });
+
+        return builder.create();
+    }
+}
@@ -46,6 +46,7 @@ public class Canfield extends Game {
         setFirstMainStackID(12);
         setFirstDiscardStackID(9);
         setLastTableauID(4);
+        setFoundationStackIDs(5, 8);
     }
 
     @Override
@@ -56,6 +57,7 @@ public class Canfield extends Game {
     @Override
     public void load() {
         startCardValue = getInt(CANFIELD_START_CARD_VALUE, 0);
+        setFoundationBackgrounds();
     }
 
     public void setStacks(RelativeLayout layoutGame, boolean isLandscape) {
@@ -99,17 +101,11 @@ public class Canfield extends Game {
             stacks[i].view.setImageBitmap(Stack.backgroundTransparent);
 
         stacks[12].view.setImageBitmap(Stack.backgroundTalon);
-        load();
-        setFoundationBackgrounds();
     }
 
     public boolean winTest() {
         //if the foundation stacks aren't full, not won. Else won
-        for (int i = 5; i <= 8; i++)
-            if (stacks[i].getSize() != 13)
-                return false;
-
-        return true;
+        return foundationsAreFull();
     }
 
     private void setFoundationBackgrounds() {
@@ -188,7 +184,7 @@ public class Canfield extends Game {
         setFoundationBackgrounds();
 
         //deal cards to trash according to the draw option
-        if (sharedStringEquals(PREF_KEY_CANFIELD_DRAW_OLD, DEFAULT_CANFIELD_DRAW)) {
+        if (settings.canfieldDraw.equals(DEFAULT_CANFIELD_DRAW)) {
             for (int i = 0; i < 3; i++) {
                 moveToStack(getMainStack().getTopCard(), stacks[9 + i], OPTION_NO_RECORD);
                 stacks[9 + i].getTopCard().flipUp();
@@ -201,7 +197,7 @@ public class Canfield extends Game {
 
     public void onMainStackTouch() {
 
-        boolean deal3 = sharedStringEquals(PREF_KEY_CANFIELD_DRAW_OLD, DEFAULT_CANFIELD_DRAW);
+        boolean deal3 = settings.canfieldDraw.equals(DEFAULT_CANFIELD_DRAW);
 
         //if there are cards on the main stack
         if (getMainStack().getSize() > 0) {
@@ -262,13 +258,6 @@ public class Canfield extends Game {
                     }
                 }
 
-                //now bring the cards to front
-                if (!stacks[10].isEmpty())
-                    stacks[10].getTopCard().view.bringToFront();
-
-                if (!stacks[11].isEmpty())
-                    stacks[11].getTopCard().view.bringToFront();
-
                 //reverse everything so the cards on the stack will be in the right order when using an undo
                 //the cards from 2. and 3 trash stack are in the right order again
                 cardsReversed.clear();
@@ -542,7 +531,7 @@ public class Canfield extends Game {
             }
         }
 
-        if (!sharedStringEquals(PREF_KEY_CANFIELD_DRAW_OLD, DEFAULT_CANFIELD_DRAW))
+        if (!settings.canfieldDraw.equals(DEFAULT_CANFIELD_DRAW))
             return;
 
         if (stacks[10].getSize() == 0 || stacks[11].getSize() == 0) {
@@ -580,12 +569,6 @@ public class Canfield extends Game {
                 originReversed.add(origin.get(cards.size() - 1 - i));
             }
 
-            if (!stacks[10].isEmpty())
-                stacks[10].getTopCard().view.bringToFront();
-
-            if (!stacks[11].isEmpty())
-                stacks[11].getTopCard().view.bringToFront();
-
             //and add it IN FRONT of the last entry
             recordList.addInFrontOfLastEntry(cardsReversed, originReversed);
         }
@@ -85,6 +85,17 @@ public class DummyGame extends Game {
         //without an offset.
         setLastTableauID(6);
 
+        //set the range of the foundation stacks, so the game can count the cards on them. Then
+        //the win test only needs to check foundationsAreFull()
+        setFoundationStackIDs(7, 10);
+
+        //if phase two of your auto complete moves the top cards of some stacks to foundations,
+        //which are built up in the same color from the ace, set these stacks. Then the auto
+        //complete button can also be shown before autoCompleteStartTest() passes, if moving the
+        //cards to the foundations would already win the game. This only helps if your start test
+        //needs more than faced up cards, like ordered runs in FreeCell
+        setAutoCompleteSolverStacks(0, 6);
+
         //use this to set your card families in the following way:
         //1=clubs 2=hearts 3=spades 4=diamonds
         //if you don't call it, the default will be used: 1,2,3,4.
@@ -221,13 +232,9 @@ public class DummyGame extends Game {
      * It will be called on every card move. Return false for Not won, and true for won
      */
     public boolean winTest() {
-        //For example on Klondike all foundation stacks have to be full, so everyone of them
-        //needs to habe 13 cards. If not, game isn't won yet. If yes, game is won
-        for (int i = 7; i <= 10; i++)
-            if (stacks[i].getSize() != 13)
-                return false;
-
-        return true;
+        //For example on Klondike all foundation stacks have to be full, so every card has to be
+        //on them. If not, game isn't won yet. If yes, game is won
+        return foundationsAreFull();
     }
 
     /*
@@ -270,7 +277,7 @@ public class DummyGame extends Game {
         //they would be movend with the moveToStack(), so I move them one by one and update
         //the recordList and score
         else if (stacks[11].getSize() != 0) {                                                       //if there are cards on stack11 which can be moved
-            recordList.add(stacks[11].currentCards);                                                //save the record in normal order
+            recordList.add(stacks[11].getCards());                                                  //save the record in normal order
 
             while (stacks[11].getSize() > 0)                                                        //then place the top card from stack11 to stack12 until it is empty
                 moveToStack(stacks[11].getTopCard(), getMainStack(), OPTION_NO_RECORD);
@@ -357,11 +364,7 @@ public class DummyGame extends Game {
     */
     public boolean autoCompleteStartTest() {
         //Example from Klondike: If every card is faced up, return true. Return false otherwiese
-        for (int i = 0; i < 7; i++)
-            if (stacks[i].getSize() > 0 && !stacks[i].getCard(0).isUp())
-                return false;
-
-        return true;
+        return tableauIsFacedUp();
     }
 
     /*
@@ -389,7 +392,8 @@ public class DummyGame extends Game {
 
     /*
      * AutoComplete Phase Two: Move cards to the foundation field (or stacks with no visible spacing)
-     * The speed will increase with each movement (as a nice effect). So this is incompatible with tableau stacks
+     * Every movement is collected first, then the cards move one after another with a small delay.
+     * So this is incompatible with tableau stacks
      *
      *  Return the card and the stack (or the id's of them) as a new 'CardAndStack'.
      *  This will only move the returned card to the destination
@@ -43,6 +43,8 @@ public class FortyEight extends Game {
         setFirstMainStackID(17);
         setFirstDiscardStackID(16);
         setLastTableauID(7);
+        setFoundationStackIDs(8, 15);
+        setAutoCompleteSolverStacks(0, 7);
 
         setLimitedRedeals(1);
 
@@ -80,11 +82,7 @@ public class FortyEight extends Game {
     }
 
     public boolean winTest() {
-        for (int i = 0; i < 8; i++)
-            if (stacks[8 + i].getSize() != 13)
-                return false;
-
-        return true;
+        return foundationsAreFull();
     }
 
     public void dealCards() {
@@ -106,7 +104,7 @@ public class FortyEight extends Game {
             moveToStack(getMainStack().getTopCard(), getDiscardStack());
 
         } else if (getDiscardStack().getSize() != 0) {
-            recordList.add(getDiscardStack().currentCards);
+            recordList.add(getDiscardStack().getCards());
 
             while (getDiscardStack().getSize() > 0)
                 moveToStack(getDiscardStack().getTopCard(), getMainStack(), OPTION_NO_RECORD);
@@ -262,15 +260,28 @@ public class FortyEight extends Game {
         return null;
     }
 
+    public boolean hasMovesBesideHints() {
+        //the hint test doesn't show movements to empty tableau stacks
+        for (int i = 0; i <= 7; i++) {
+            if (stacks[i].isEmpty())
+                return true;
+        }
+
+        return false;
+    }
+
     public boolean autoCompleteStartTest() {
+        if (!tableauIsFacedUp() || !getMainStack().isEmpty() || !getDiscardStack().isEmpty())
+            return false;
+
         for (int i = 0; i < 8; i++) {
             Stack stack = stacks[i];
 
-            if ((!stack.isEmpty() && !stack.getCard(0).isUp()) || !testCardsUpToTop(stack, 0, SAME_COLOR))
+            if (!testCardsUpToTop(stack, 0, SAME_COLOR))
                 return false;
         }
 
-        return getMainStack().isEmpty() && getDiscardStack().isEmpty();
+        return true;
     }
 
     public CardAndStack autoCompletePhaseTwo() {
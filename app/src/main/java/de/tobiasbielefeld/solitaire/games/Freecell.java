@@ -36,11 +36,15 @@ import static de.tobiasbielefeld.solitaire.games.Game.testMode2.*;
 
 public class Freecell extends Game {
 
+    private final static int SUPERMOVE_OFFSET = 40;                                                 //delay in milliseconds between the cards of a supermove
+
     public Freecell() {
         setNumberOfDecks(1);
         setNumberOfStacks(16);
         setDealFromID(0);
         setLastTableauID(7);
+        setFoundationStackIDs(12, 15);
+        setAutoCompleteSolverStacks(0, 11);
     }
 
     public void setStacks(RelativeLayout layoutGame, boolean isLandscape) {
@@ -69,11 +73,7 @@ public class Freecell extends Game {
 
     public boolean winTest() {
         //won if the foundation stacks are full
-        for (int i = 12; i <= 15; i++)
-            if (stacks[i].getSize() != 13)
-                return false;
-
-        return true;
+        return foundationsAreFull();
     }
 
     public void dealCards() {
@@ -95,17 +95,8 @@ public class Freecell extends Game {
 
     public boolean cardTest(Stack stack, Card card) {
         if (stack.getId() < 8) {
-            //if there are as many cards moving as free stacks, and one of the free stacks was choosen, dont move
-            int numberOfFreeCells = 0;
-            int movingCards = card.getStack().getSize() - card.getIndexOnStack();
-
-            for (int i = 0; i < 12; i++) {
-                if (stacks[i].isEmpty())
-                    numberOfFreeCells++;
-            }
-
-
-            if (movingCards > numberOfFreeCells && stack.isEmpty())
+            //the whole run has to fit through the free cells and empty tableau stacks
+            if (card.getStack().getSize() - card.getIndexOnStack() > getMaxMovableCards(stack))
                 return false;
 
             return stack.isEmpty() || (stack.getTopCard().getColor() % 2 != card.getColor() % 2)
@@ -131,19 +122,38 @@ public class Freecell extends Game {
          *  cards at once, if they are in the right order and if there are enough free cells
          *  Use the testCardsUpToTop() method for that test
          */
-        int numberOfFreeCells = 0;
-        int startPos;
-
         Stack sourceStack = card.getStack();
+        int index = sourceStack.getIndexOfCard(card);
 
-        for (int i = 0; i < 12; i++) {
+        //the destination isn't known yet, so use the maximum for a non empty tableau stack
+        return sourceStack.getSize() - index <= getMaxMovableCards(null)
+                && testCardsUpToTop(sourceStack, index, ALTERNATING_COLOR);
+    }
+
+    /**
+     * Calculates how many cards can be moved at once with a supermove: Every free cell can hold
+     * one card of the run, and every empty tableau stack doubles the number, because a part of the
+     * run can be moved there (using the free cells) and back on top of the rest of the run later.
+     *
+     * @param destination The destination of the movement, it doesn't count as an empty stack.
+     *                    Can be null, if the destination isn't known
+     * @return The maximum number of cards
+     */
+    private int getMaxMovableCards(Stack destination) {
+        int freeCells = 0;
+        int emptyStacks = 0;
+
+        for (int i = 8; i < 12; i++) {
             if (stacks[i].isEmpty())
-                numberOfFreeCells++;
+                freeCells++;
         }
 
-        startPos = max(sourceStack.getSize() - numberOfFreeCells - 1, card.getStack().getIndexOfCard(card));
+        for (int i = 0; i < 8; i++) {
+            if (stacks[i].isEmpty() && stacks[i] != destination)
+                emptyStacks++;
+        }
 
-        return card.getStack().getIndexOfCard(card) >= startPos && testCardsUpToTop(sourceStack, startPos, ALTERNATING_COLOR);
+        return (freeCells + 1) << emptyStacks;
     }
 
     public CardAndStack hintTest() {
@@ -157,16 +167,7 @@ public class Freecell extends Game {
             if (sourceStack.isEmpty())
                 continue;
 
-            int startPos;
-
-            int numberOfFreeCells = 0;
-
-            for (int j = 0; j < 12; j++) {
-                if (stacks[j].isEmpty())
-                    numberOfFreeCells++;
-            }
-
-            startPos = max(sourceStack.getSize() - numberOfFreeCells - 1, 0);
+            int startPos = max(sourceStack.getSize() - getMaxMovableCards(null), 0);
 
             for (int j = startPos; j < sourceStack.getSize(); j++) {
                 Card cardToMove = sourceStack.getCard(j);
@@ -240,6 +241,39 @@ public class Freecell extends Game {
         return null;
     }
 
+    @Override
+    public void onPlayerMovement(Card card, Stack destination) {
+        //let the cards of a supermove start one after another, like they would go through the cells
+        Stack origin = card.getStack();
+
+        for (int i = origin.getIndexOfCard(card) + 1; i < origin.getSize(); i++) {
+            animate.setStartOffset(origin.getCard(i), (i - origin.getIndexOfCard(card)) * SUPERMOVE_OFFSET);
+        }
+    }
+
+    public CardAndStack autoPlayTest() {
+        //tableau and free cells
+        for (int i = 0; i < 12; i++) {
+            CardAndStack cardAndStack = safeFoundationMove(stacks[i]);
+
+            if (cardAndStack != null)
+                return cardAndStack;
+        }
+
+        return null;
+    }
+
+    public boolean hasMovesBesideHints() {
+        //the hint test doesn't show movements to free cells and empty tableau stacks
+        for (int i = 0; i <= 11; i++) {
+            if (stacks[i].isEmpty())
+                return true;
+        }
+
+        //and it only moves aces to the foundations, the other cards can fit there too
+        return autoCompletePhaseTwo() != null;
+    }
+
     public boolean autoCompleteStartTest() {
         //autocomplete can start if stack has cards in the right order
         for (int i = 0; i < 8; i++) {
@@ -61,6 +61,13 @@ public abstract class Game {
     private int totalRedeals = 0;
     private boolean hasArrow = false;
     private boolean singleTapeEnabled = false;
+    private int firstFoundationID = -1;
+    private int lastFoundationID = -1;
+    private int cardsOnFoundations = 0;                                                             //running counters, updated by the stacks on every change
+    private int cardsOnTableau = 0;
+    private int faceDownCardsOnTableau = 0;
+    private int firstSolverSourceID = -1;                                                           //stacks used by the auto complete solver
+    private int lastSolverSourceID = -1;
 
     // some methods used by other classes
 
@@ -208,8 +215,9 @@ public abstract class Game {
     }
 
     /**
-     * Is the second phase of the autocomplete, it doesnt wait for card movements to end, will be called
-     * faster and faster until every card was moved.
+     * Is the second phase of the autocomplete, it doesnt wait for card movements to end. It is called
+     * until it returns null, before the stacks update their layout, then all cards start moving
+     * with a small delay between them.
      *
      * @return  A card and a destination stack if possible, null otherwise
      */
@@ -217,6 +225,27 @@ public abstract class Game {
         return null;
     }
 
+    /**
+     * Used by the auto play setting: After every move of the player, the returned card is moved
+     * to the foundations, until this returns null. Only return movements which are safe, see
+     * safeFoundationMove().
+     *
+     * @return A card and a foundation stack if possible, null otherwise
+     */
+    public CardAndStack autoPlayTest() {
+        return null;
+    }
+
+    /**
+     * Used by the dead end detection, if hintTest() doesn't find anything. Override it if the hint
+     * test skips useful movements, like moving a card to an empty free cell.
+     *
+     * @return True if there are movements which aren't shown as hints, false otherwise
+     */
+    public boolean hasMovesBesideHints() {
+        return false;
+    }
+
     /**
      * Gets executed in onPause() of the gameManager, save stuff to sharedPrefs here, if necessary
      */
@@ -262,12 +291,25 @@ public abstract class Game {
     public void testAfterMove() {
     }
 
+    /**
+     * Called right before the player moves cards to another stack (with drag and drop,
+     * tap-to-select, double tap or single tap). The rules were already tested at this point, so
+     * cardTest() and doubleTapTest() don't need to save anything. Use this if testAfterMove()
+     * needs to know what the player did.
+     *
+     * @param card The first card of the movement
+     * @param destination The destination of the movement
+     */
+    public void onPlayerMovement(Card card, Stack destination) {
+    }
+
     // stuff that the games should use to set up other stuff
 
     /**
      * tests card from startPos to stack top if the cards are in the right order
      * (For example, first a red 10, then a black 9, then a red 8 and so on)
-     * set mode to true if the card color has to alternate, false otherwise
+     * set mode to true if the card color has to alternate, false otherwise. The stacks keep the
+     * length of the ordered runs at their top, so this doesn't need to look at the cards.
      *
      * @param stack The stack to test
      * @param startPos The start index of the cards to test
@@ -277,24 +319,37 @@ public abstract class Game {
     protected boolean testCardsUpToTop(Stack stack, int startPos, testMode mode) {
 
 
-        for (int i = startPos; i < stack.getSize() - 1; i++) {
-            Card bottomCard = stack.getCard(i);
-            Card upperCard = stack.getCard(i + 1);
+        int run;
 
-            if (mode == ALTERNATING_COLOR){
-                if ((bottomCard.getColor() % 2 == upperCard.getColor() % 2) || (bottomCard.getValue() != upperCard.getValue() + 1))
-                    return false;
-            } else if (mode == SAME_COLOR){
-                if ((bottomCard.getColor() != upperCard.getColor()) || (bottomCard.getValue() != upperCard.getValue() + 1))
-                    return false;
-            } else if (mode == DOESNT_MATTER){
-                if (bottomCard.getValue() != upperCard.getValue() + 1)
-                    return false;
-            }
+        switch (mode) {
+            case ALTERNATING_COLOR:
+                run = stack.getAlternatingColorRun();
+                break;
+            case SAME_COLOR:
+                run = stack.getSameColorRun();
+                break;
+            case DOESNT_MATTER: default:
+                run = stack.getDescendingRun();
+                break;
+        }
+
+        return startPos >= stack.getSize() - run;
+    }
 
+    /**
+     * Tests if the top cards of a stack are a complete card family: faced up and from king to ace
+     * with the same color. Used in games like Spider, where those get moved to the foundations.
+     *
+     * @param stack The stack to test
+     * @return The position of the king on the stack, or -1 if there is no complete family
+     */
+    protected int getCompleteFamilyPos(Stack stack) {
+        if (stack.getSameColorRun() < 13 || stack.getTopCard().getValue() != 1
+                || !stack.getCardFromTop(12).isUp()) {
+            return -1;
         }
 
-        return true;
+        return stack.getSize() - 13;
     }
 
     /**
@@ -326,9 +381,7 @@ public abstract class Game {
     protected void setUpCardWidth(RelativeLayout layoutGame, boolean isLandscape, int portraitValue, int landscapeValue) {
         Card.width = isLandscape ? layoutGame.getWidth() / (landscapeValue) : layoutGame.getWidth() / (portraitValue);
         Card.height = (int) (Card.width * 1.5);
-        RelativeLayout.LayoutParams params = new RelativeLayout.LayoutParams(Card.width, Card.height);
-        for (Card card : cards) card.view.setLayoutParams(params);
-        for (Stack stack : stacks) stack.view.setLayoutParams(params);
+        applyCardDimensions();
     }
 
     /**
@@ -360,6 +413,14 @@ public abstract class Game {
             Card.height = testHeight2;
         }
 
+        applyCardDimensions();
+    }
+
+    /**
+     * Applies the current card dimensions to the views of every card and stack. Called after
+     * setting the card width and height, also when loading the layout from the cache.
+     */
+    public void applyCardDimensions() {
         RelativeLayout.LayoutParams params = new RelativeLayout.LayoutParams(Card.width, Card.height);
         for (Card card : cards) card.view.setLayoutParams(params);
         for (Stack stack : stacks) stack.view.setLayoutParams(params);
@@ -484,7 +545,7 @@ public abstract class Game {
      * @param stack The stack to apply
      * @param direction The default direction of the arrow LEFT or RIGHT
      */
-    protected void setArrow(Stack stack, Stack.ArrowDirection direction) {
+    public void setArrow(Stack stack, Stack.ArrowDirection direction) {
         hasArrow = true;
         stack.setArrow(direction);
     }
@@ -598,6 +659,130 @@ public abstract class Game {
         lastTableauID = id;
     }
 
+    /**
+     * Sets the range of the foundation stacks, so the number of cards on them can be counted.
+     *
+     * @param first The id of the first foundation stack
+     * @param last The id of the last foundation stack
+     */
+    protected void setFoundationStackIDs(int first, int last) {
+        firstFoundationID = first;
+        lastFoundationID = last;
+    }
+
+    public int getFirstFoundationID() {
+        return firstFoundationID;
+    }
+
+    public int getLastFoundationID() {
+        return lastFoundationID;
+    }
+
+    /**
+     * Enables the auto complete solver for this game. Use it only if phase two of the auto
+     * complete moves the top cards of the given stacks to the foundations and the foundations are
+     * built up in the same color from the ace (like in FreeCell). The foundation stacks need to
+     * be set with setFoundationStackIDs(). It only helps if autoCompleteStartTest() needs more
+     * than a faced up tableau, because the solver doesn't use faced down cards.
+     *
+     * @param first The id of the first stack phase two takes cards from
+     * @param last The id of the last stack phase two takes cards from
+     */
+    protected void setAutoCompleteSolverStacks(int first, int last) {
+        firstSolverSourceID = first;
+        lastSolverSourceID = last;
+    }
+
+    public boolean hasAutoCompleteSolver() {
+        return firstSolverSourceID != -1 && firstFoundationID != -1;
+    }
+
+    public boolean isAutoCompleteSolverSource(int id) {
+        return id >= firstSolverSourceID && id <= lastSolverSourceID;
+    }
+
+    /**
+     * Updates the running counters after cards were added, removed or flipped on a stack. This
+     * way the win and auto complete tests don't need to look at every stack.
+     *
+     * @param stack The changed stack
+     * @param cardsDelta The change of the number of cards on the stack
+     * @param faceDownDelta The change of the number of faced down cards on the stack
+     */
+    public void updateCounters(Stack stack, int cardsDelta, int faceDownDelta) {
+        int id = stack.getId();
+
+        if (id <= lastTableauID) {
+            cardsOnTableau += cardsDelta;
+            faceDownCardsOnTableau += faceDownDelta;
+        }
+
+        if (id >= firstFoundationID && id <= lastFoundationID) {
+            cardsOnFoundations += cardsDelta;
+        }
+    }
+
+    /**
+     * Tests if the top card of the given stack can be moved to a foundation and if that is safe:
+     * Aces and twos always are, other cards only if both cards with the opposite color and a value
+     * one lower are already on the foundations. Then no card on the tableau can need it anymore.
+     * Only for games with one deck, which build the tableau in alternating colors.
+     *
+     * @param origin The stack to test
+     * @return The card and the foundation, or null if the move isn't possible or not safe
+     */
+    protected CardAndStack safeFoundationMove(Stack origin) {
+        if (origin.isEmpty() || !origin.getTopCard().isUp() || !addCardToMovementTest(origin.getTopCard())) {
+            return null;
+        }
+
+        Card card = origin.getTopCard();
+
+        if (card.getValue() > 2) {
+            int oppositeColorCards = 0;
+
+            for (int i = firstFoundationID; i <= lastFoundationID; i++) {
+                if (!stacks[i].isEmpty() && stacks[i].getTopCard().getColor() % 2 != card.getColor() % 2
+                        && stacks[i].getTopCard().getValue() >= card.getValue() - 1) {
+                    oppositeColorCards++;
+                }
+            }
+
+            if (oppositeColorCards < 2) {
+                return null;
+            }
+        }
+
+        for (int i = firstFoundationID; i <= lastFoundationID; i++) {
+            if (card.test(stacks[i])) {
+                return new CardAndStack(card, stacks[i]);
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * @return True if every card of the game lies on the foundation stacks
+     */
+    protected boolean foundationsAreFull() {
+        return cardsOnFoundations == cards.length;
+    }
+
+    /**
+     * @return True if no card is on the tableau stacks
+     */
+    protected boolean tableauIsEmpty() {
+        return cardsOnTableau == 0;
+    }
+
+    /**
+     * @return True if no card on the tableau stacks is faced down
+     */
+    protected boolean tableauIsFacedUp() {
+        return faceDownCardsOnTableau == 0;
+    }
+
     public boolean hasMainStack() {
         return hasMainStack;
     }
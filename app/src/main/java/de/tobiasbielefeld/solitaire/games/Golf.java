@@ -69,11 +69,7 @@ public class Golf extends Game {
 
     public boolean winTest() {
         //game is won if tableau is empty
-        for (int i = 0; i <= getLastTableauId(); i++)
-            if (!stacks[i].isEmpty())
-                return false;
-
-        return true;
+        return tableauIsEmpty();
     }
 
     public void dealCards() {
@@ -95,7 +91,7 @@ public class Golf extends Game {
          * or the cards values difference is 1 or -1
          */
         return stack == getDiscardStack()
-                && ((getSharedBoolean(PREF_KEY_GOLF_CYCLIC, DEFAULT_GOLF_CYCLIC)
+                && ((settings.golfCyclic
                 && (card.getValue() == 13 && stack.getTopCard().getValue() == 1 || card.getValue() == 1 && stack.getTopCard().getValue() == 13))
                 || (card.getValue() == stack.getTopCard().getValue() + 1 || card.getValue() == stack.getTopCard().getValue() - 1));
     }
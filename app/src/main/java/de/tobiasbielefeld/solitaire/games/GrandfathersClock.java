@@ -368,13 +368,7 @@ public class GrandfathersClock extends Game {
     }
 
     public boolean winTest() {
-        for (int i=0;i<8;i++){
-            if (!stacks[i].isEmpty()){
-                return false;
-            }
-        }
-
-        return true;
+        return tableauIsEmpty();
     }
 
     public boolean autoCompleteStartTest() {
@@ -41,6 +41,8 @@ public class Gypsy extends Game {
         setNumberOfStacks(17);
         setFirstMainStackID(16);
         setLastTableauID(7);
+        setFoundationStackIDs(8, 15);
+        setAutoCompleteSolverStacks(0, 7);
     }
 
     public void setStacks(RelativeLayout layoutGame, boolean isLandscape) {
@@ -68,12 +70,7 @@ public class Gypsy extends Game {
 
 
     public boolean winTest() {
-        for (int i = 0; i < 8; i++) {
-            if (stacks[8 + i].getSize() != 13)
-                return false;
-        }
-
-        return true;
+        return foundationsAreFull();
     }
 
     public void dealCards() {
@@ -195,9 +192,19 @@ public class Gypsy extends Game {
         return null;
     }
 
+    public boolean hasMovesBesideHints() {
+        //the hint test doesn't show movements to empty tableau stacks
+        for (int i = 0; i <= 7; i++) {
+            if (stacks[i].isEmpty())
+                return true;
+        }
+
+        return false;
+    }
+
     public boolean autoCompleteStartTest() {
 
-        if (!getMainStack().isEmpty())
+        if (!getMainStack().isEmpty() || !tableauIsFacedUp())
             return false;
 
         for (int i = 0; i < 8; i++) {
@@ -43,6 +43,7 @@ public class Klondike extends Game {
         setFirstMainStackID(14);
         setFirstDiscardStackID(11);
         setLastTableauID(6);
+        setFoundationStackIDs(7, 10);
     }
 
     public void setStacks(RelativeLayout layoutGame, boolean isLandscape) {
@@ -90,11 +91,7 @@ public class Klondike extends Game {
 
     public boolean winTest() {
         //if the foundation stacks aren't full, not won. Else won
-        for (int i = 7; i <= 10; i++)
-            if (stacks[i].getSize() != 13)
-                return false;
-
-        return true;
+        return foundationsAreFull();
     }
 
     public void dealCards() {
@@ -111,7 +108,7 @@ public class Klondike extends Game {
         }
 
         //deal cards to trash according to the draw option
-        if (sharedStringEquals(PREF_KEY_KLONDIKE_DRAW_OLD, DEFAULT_KLONDIKE_DRAW)) {
+        if (settings.klondikeDraw.equals(DEFAULT_KLONDIKE_DRAW)) {
             moveToStack(getMainStack().getTopCard(), stacks[13], OPTION_NO_RECORD);
             stacks[13].getTopCard().flipUp();
         } else {
@@ -124,7 +121,7 @@ public class Klondike extends Game {
 
     public void onMainStackTouch() {
 
-        boolean deal3 = !sharedStringEquals(PREF_KEY_KLONDIKE_DRAW_OLD, DEFAULT_KLONDIKE_DRAW);
+        boolean deal3 = !settings.klondikeDraw.equals(DEFAULT_KLONDIKE_DRAW);
 
         //if there are cards on the main stack
         if (getMainStack().getSize() > 0) {
@@ -185,13 +182,6 @@ public class Klondike extends Game {
                     }
                 }
 
-                //now bring the cards to front
-                if (!stacks[12].isEmpty())
-                    stacks[12].getTopCard().view.bringToFront();
-
-                if (!stacks[13].isEmpty())
-                    stacks[13].getTopCard().view.bringToFront();
-
                 //reverse everything so the cards on the stack will be in the right order when using an undo
                 //the cards from 2. and 3 trash stack are in the right order again
                 cardsReversed.clear();
@@ -230,13 +220,24 @@ public class Klondike extends Game {
         }
     }
 
+    public CardAndStack autoPlayTest() {
+        //tableau and discard stacks, the discard stacks only with the card on top of them
+        for (int i = 0; i <= 13; i++) {
+            if (i >= 7 && i <= 10)
+                continue;
+
+            CardAndStack cardAndStack = safeFoundationMove(stacks[i]);
+
+            if (cardAndStack != null)
+                return cardAndStack;
+        }
+
+        return null;
+    }
+
     public boolean autoCompleteStartTest() {
         //if every card is faced up, show the auto complete button
-        for (int i = 0; i < 7; i++)
-            if (stacks[i].getSize() > 0 && !stacks[i].getCard(0).isUp())
-                return false;
-
-        return true;
+        return tableauIsFacedUp();
     }
 
     public boolean cardTest(Stack stack, Card card) {
@@ -413,7 +414,7 @@ public class Klondike extends Game {
          *  This movement will be added to the last record list entry, so it will be also undone if
          *  the card will be moved back to the discard stacks
          */
-        if (sharedStringEquals(PREF_KEY_KLONDIKE_DRAW_OLD, DEFAULT_KLONDIKE_DRAW) || gameLogic.hasWon())
+        if (settings.klondikeDraw.equals(DEFAULT_KLONDIKE_DRAW) || gameLogic.hasWon())
             return;
 
         if (stacks[12].getSize() == 0 || stacks[13].getSize() == 0) {
@@ -451,12 +452,6 @@ public class Klondike extends Game {
                 originReversed.add(origin.get(cards.size() - 1 - i));
             }
 
-            if (!stacks[12].isEmpty())
-                stacks[12].getTopCard().view.bringToFront();
-
-            if (!stacks[13].isEmpty())
-                stacks[13].getTopCard().view.bringToFront();
-
             //and add it IN FRONT of the last entry
             recordList.addInFrontOfLastEntry(cardsReversed, originReversed);
         }
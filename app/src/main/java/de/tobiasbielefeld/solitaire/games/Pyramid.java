@@ -31,11 +31,22 @@ import static de.tobiasbielefeld.solitaire.classes.Stack.ArrowDirection.LEFT;
 
 /**
  * Pyramid Solitaire! It has a lot of stacks.
+ *
+ * The pyramid keeps an index of its cards: Every position has a bit mask of the two positions
+ * covering it, so a position is free if none of these bits is set in the mask of the occupied
+ * positions. The free cards are also saved by their value, so the partner for a sum of 13 is
+ * found with one look up. The index is updated in updateCounters(), which the stacks call on
+ * every change.
  */
 
 public class Pyramid extends Game {
 
     int[] stackAboveID = new int[28];
+    private long[] blockerMask = new long[28];                                                      //positions which cover each position
+    private long[] coveredMask = new long[28];                                                      //positions which are covered by each position
+    private long occupied = 0;                                                                      //positions with cards on them
+    private long[] freeByValue = new long[14];                                                      //free positions with cards, for every card value
+    private int[] indexedValue = new int[28];                                                       //value the position is saved with in freeByValue, 0 if it isn't
 
     ArrayList<Card> cardsToMove = new ArrayList<>();
     ArrayList<Stack> origins = new ArrayList<>();
@@ -49,6 +60,21 @@ public class Pyramid extends Game {
         setDealFromID(30);
         setDirections();                                                                              //empty so all stacks have no spacing direction
 
+        //the ids of the stacks above every tableau stack, depends only on the pyramid shape
+        int index = 0;
+        for (int i = 0; i < 7; i++) {
+            for (int j = 0; j < i + 1; j++) {
+                stackAboveID[index++] = ((i + 1) * (i + 2)) / 2 + j;
+            }
+        }
+
+        //the last row isn't covered by anything
+        for (int i = 0; i <= 20; i++) {
+            blockerMask[i] = (1L << stackAboveID[i]) | (1L << (stackAboveID[i] + 1));
+            coveredMask[stackAboveID[i]] |= 1L << i;
+            coveredMask[stackAboveID[i] + 1] |= 1L << i;
+        }
+
         setLimitedRedeals(2);
 
         if (!getSharedBoolean(PREF_KEY_PYRAMID_LIMITED_REDEALS, DEFAULT_PYRAMID_LIMITED_REDEALS))
@@ -68,9 +94,6 @@ public class Pyramid extends Game {
             int startPosY = (isLandscape ? Card.width / 4 : Card.width / 2) + i * Card.height / 2;
 
             for (int j = 0; j < i + 1; j++) {
-
-                stackAboveID[index] = ((i + 1) * (i + 2)) / 2 + j;
-
                 stacks[index].setX(startPosX + j * (spacing + Card.width));
                 stacks[index].setY(startPosY);
                 stacks[index].view.setImageBitmap(Stack.backgroundTransparent);
@@ -94,9 +117,8 @@ public class Pyramid extends Game {
     }
 
     public boolean winTest() {
-        for (int i = 0; i <= getLastTableauId(); i++)
-            if (!stacks[i].isEmpty())
-                return false;
+        if (!tableauIsEmpty())
+            return false;
 
         return sharedStringEquals(PREF_KEY_PYRAMID_DIFFICULTY, DEFAULT_PYRAMID_DIFFICULTY) || getDiscardStack().isEmpty() && stacks[30].isEmpty();
     }
@@ -122,7 +144,7 @@ public class Pyramid extends Game {
         if (!getDealStack().isEmpty()) {
             moveToStack(getDealStack().getTopCard(), getDiscardStack());
         } else if (!getDiscardStack().isEmpty()) {
-            recordList.add(getDiscardStack().currentCards);
+            recordList.add(getDiscardStack().getCards());
 
             while (getDiscardStack().getSize() > 0)
                 moveToStack(getDiscardStack().getTopCard(), getDealStack(), OPTION_NO_RECORD);
@@ -140,13 +162,6 @@ public class Pyramid extends Game {
             return true;
 
         if (stack.getId()!=28 && !stack.isEmpty() && stackIsFree(stack) && card.getValue() + stack.getTopCard().getValue() == 13) {
-
-            cardsToMove.add(stack.getTopCard());
-            cardsToMove.add(card);
-
-            origins.add(stack);
-            origins.add(card.getStack());
-
             return true;
         }
 
@@ -169,34 +184,64 @@ public class Pyramid extends Game {
     }
 
     public CardAndStack hintTest() {
+        long freePositions = 0;
+
+        for (long mask : freeByValue) {
+            freePositions |= mask;
+        }
 
-        ArrayList<Stack> freeStacks = new ArrayList<>();
+        //first the free cards of the pyramid
+        while (freePositions != 0) {
+            int id = Long.numberOfTrailingZeros(freePositions);
+            freePositions &= freePositions - 1;
 
-        for (int i = 0; i <= getLastTableauId(); i++) {
-            if (stackIsFree(stacks[i]) && !stacks[i].isEmpty() && !hint.hasVisited(stacks[i].getTopCard()))
-                freeStacks.add(stacks[i]);
+            CardAndStack cardAndStack = findHint(stacks[id]);
+
+            if (cardAndStack != null)
+                return cardAndStack;
         }
 
-        //first discard stack
-        if (!getDiscardStack().isEmpty() && !hint.hasVisited(getDiscardStack().getTopCard()))
-            freeStacks.add(getDiscardStack());
-        //second discard stack
-        if (!stacks[30].isEmpty() && !hint.hasVisited(stacks[30].getTopCard()))
-            freeStacks.add(stacks[30]);
+        //then both discard stacks
+        for (int i = 29; i <= 30; i++) {
+            CardAndStack cardAndStack = findHint(stacks[i]);
 
-        for (Stack stack : freeStacks) {
+            if (cardAndStack != null)
+                return cardAndStack;
+        }
 
-            if (stack.getTopCard().getValue() == 13) {
-                return new CardAndStack(stack.getTopCard(), stacks[28]);
-            }
+        return null;
+    }
 
-            for (Stack otherStack : freeStacks) {
-                if (stack.getId() == otherStack.getId())
-                    continue;
+    /**
+     * Looks for a hint with the top card of the given stack: Kings can be moved to the trash,
+     * other cards need a free partner, so their values sum up to 13.
+     *
+     * @param stack The stack to test, a free pyramid position or one of the discard stacks
+     * @return The card and its destination, or null if there is none
+     */
+    private CardAndStack findHint(Stack stack) {
+        if (stack.isEmpty() || hint.hasVisited(stack.getTopCard()))
+            return null;
 
-                if (stackIsFree(stack) && stack.getTopCard().getValue() + otherStack.getTopCard().getValue() == 13)
-                    return new CardAndStack(stack.getTopCard(), otherStack);
-            }
+        Card card = stack.getTopCard();
+
+        if (card.getValue() == 13)
+            return new CardAndStack(card, stacks[28]);
+
+        long partners = freeByValue[13 - card.getValue()];
+
+        while (partners != 0) {
+            int id = Long.numberOfTrailingZeros(partners);
+            partners &= partners - 1;
+
+            if (id != stack.getId() && !hint.hasVisited(stacks[id].getTopCard()))
+                return new CardAndStack(card, stacks[id]);
+        }
+
+        for (int i = 29; i <= 30; i++) {
+            if (i != stack.getId() && !stacks[i].isEmpty() && !hint.hasVisited(stacks[i].getTopCard())
+                    && card.getValue() + stacks[i].getTopCard().getValue() == 13)
+                return new CardAndStack(card, stacks[i]);
         }
 
         return null;
@@ -211,16 +256,14 @@ public class Pyramid extends Game {
             return stacks[28];
         }
 
-        for (int i = getLastTableauId(); i >= 0; i--) {
+        //the free partner with the highest position
+        long partners = freeByValue[13 - card.getValue()];
 
-            if (stacks[i].isEmpty())
-                continue;
+        if (card.getStackId() <= getLastTableauId())
+            partners &= ~(1L << card.getStackId());
 
-            if (card.getStackId() != i && stackIsFree(stacks[i]) && card.getValue() + stacks[i].getTopCard().getValue() == 13) {
-                returnStack = stacks[i];
-                break;
-            }
-        }
+        if (partners != 0)
+            returnStack = stacks[63 - Long.numberOfLeadingZeros(partners)];
 
         if (returnStack == null && !getDiscardStack().isEmpty() && card.getStack() != getDiscardStack() && card.getValue() + getDiscardStack().getTopCard().getValue() == 13)
             returnStack = getDiscardStack();
@@ -229,11 +272,6 @@ public class Pyramid extends Game {
             returnStack = getDealStack();
 
         if (returnStack != null) {
-            cardsToMove.add(returnStack.getTopCard());
-            cardsToMove.add(card);
-
-            origins.add(returnStack);
-            origins.add(card.getStack());
             return returnStack;
         }
 
@@ -252,6 +290,25 @@ public class Pyramid extends Game {
             return 0;
     }
 
+    /**
+     * If the card was placed on another card to get a sum of 13, save both of them, so they
+     * are moved to the trash in testAfterMove(). This isn't done in cardTest(), because the rules
+     * are also tested on stacks the card isn't moved to.
+     */
+    @Override
+    public void onPlayerMovement(Card card, Stack destination) {
+        cardsToMove.clear();
+        origins.clear();
+
+        if (destination.getId() != 28 && !destination.isEmpty() && card.getValue() + destination.getTopCard().getValue() == 13) {
+            cardsToMove.add(destination.getTopCard());
+            cardsToMove.add(card);
+
+            origins.add(destination);
+            origins.add(card.getStack());
+        }
+    }
+
     public void testAfterMove() {
         if (cardsToMove.size() > 0) {
             recordList.deleteLast();
@@ -262,17 +319,54 @@ public class Pyramid extends Game {
             cardsToMove.clear();
             origins.clear();
 
-            testIfWonHandler.sendEmptyMessageDelayed(0, 200);
+            postMovePipeline.testIfWon();
         }
     }
 
     private boolean stackIsFree(Stack stack) {
-        if (stack.getId() > 20)
-            return true;
+        return stack.getId() > 20 || (occupied & blockerMask[stack.getId()]) == 0;
+    }
+
+    /**
+     * Updates the index of the pyramid, after cards were added to or removed from a stack.
+     */
+    @Override
+    public void updateCounters(Stack stack, int cardsDelta, int faceDownDelta) {
+        super.updateCounters(stack, cardsDelta, faceDownDelta);
+
+        int id = stack.getId();
+
+        if (id > getLastTableauId())
+            return;
+
+        if (stack.isEmpty())
+            occupied &= ~(1L << id);
+        else
+            occupied |= 1L << id;
 
-        Stack stackAbove1 = stacks[stackAboveID[stack.getId()]];
-        Stack stackAbove2 = stacks[stackAboveID[stack.getId()] + 1];
+        updateIndex(id);
 
-        return stackAbove1.isEmpty() && stackAbove2.isEmpty();
+        //the positions below can become free or covered
+        long covered = coveredMask[id];
+
+        while (covered != 0) {
+            updateIndex(Long.numberOfTrailingZeros(covered));
+            covered &= covered - 1;
+        }
+    }
+
+    /**
+     * Saves the position with the value of its top card, if it is free, or removes it otherwise.
+     */
+    private void updateIndex(int id) {
+        if (indexedValue[id] != 0) {
+            freeByValue[indexedValue[id]] &= ~(1L << id);
+            indexedValue[id] = 0;
+        }
+
+        if ((occupied & (1L << id)) != 0 && (occupied & blockerMask[id]) == 0) {
+            indexedValue[id] = stacks[id].getTopCard().getValue();
+            freeByValue[indexedValue[id]] |= 1L << id;
+        }
     }
 }
@@ -42,6 +42,7 @@ public class SimpleSimon extends Game {
         setNumberOfStacks(14);
         setDealFromID(0);
         setLastTableauID(9);
+        setFoundationStackIDs(10, 13);
     }
 
     public void setStacks(RelativeLayout layoutGame, boolean isLandscape) {
@@ -63,7 +64,7 @@ public class SimpleSimon extends Game {
     }
 
     public boolean winTest() {
-        return (stacks[10].getSize() == 13 && stacks[11].getSize() == 13 && stacks[12].getSize() == 13 && stacks[13].getSize() == 13);
+        return foundationsAreFull();
     }
 
     public void dealCards() {
@@ -185,42 +186,35 @@ public class SimpleSimon extends Game {
 
         for (int i = 0; i < 10; i++) {
             Stack currentStack = stacks[i];
+            int j = getCompleteFamilyPos(currentStack);
 
-            if (currentStack.isEmpty() || currentStack.getTopCard().getValue() != 1)
-                continue;
-
-            for (int j = currentStack.getFirstUpCardPos(); j < currentStack.getSize(); j++) {
-                if (j == -1)
-                    break;
-
-                Card cardToTest = currentStack.getCard(j);
-
-                if (cardToTest.getValue() == 13 && testCardsUpToTop(currentStack, j, SAME_COLOR)) {
-                    Stack foundationStack = stacks[10];
+            if (j != -1) {
+                Stack foundationStack = stacks[10];
 
-                    while (!foundationStack.isEmpty())
-                        foundationStack = stacks[foundationStack.getId() + 1];
+                while (!foundationStack.isEmpty())
+                    foundationStack = stacks[foundationStack.getId() + 1];
 
-                    ArrayList<Card> cards = new ArrayList<>();
-                    ArrayList<Stack> origins = new ArrayList<>();
+                ArrayList<Card> cards = new ArrayList<>();
+                ArrayList<Stack> origins = new ArrayList<>();
 
-                    for (int k = j; k < currentStack.getSize(); k++) {
-                        cards.add(currentStack.getCard(k));
-                        origins.add(currentStack);
-                    }
+                for (int k = j; k < currentStack.getSize(); k++) {
+                    cards.add(currentStack.getCard(k));
+                    origins.add(currentStack);
+                }
 
-                    recordList.addAtEndOfLastEntry(cards, origins);
-                    moveToStack(cards, foundationStack, OPTION_NO_RECORD);
-                    scores.update(200);
+                recordList.addAtEndOfLastEntry(cards, origins);
+                moveToStack(cards, foundationStack, OPTION_NO_RECORD);
+                scores.update(200);
 
-                    testIfWonHandler.sendEmptyMessageDelayed(0, 200);
-                    break;
-                }
+                postMovePipeline.testIfWon();
             }
         }
     }
 
     public boolean autoCompleteStartTest() {
+        if (!tableauIsFacedUp())
+            return false;
+
         for (int i = 0; i < 10; i++)
             if (stacks[i].getSize() > 0 && (stacks[i].getFirstUpCardPos() != 0 || !testCardsUpToTop(stacks[i], 0, SAME_COLOR)))
                 return false;
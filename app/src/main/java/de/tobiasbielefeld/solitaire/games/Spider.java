@@ -37,11 +37,16 @@ import static de.tobiasbielefeld.solitaire.games.Game.testMode2.*;
 
 public class Spider extends Game {
 
+    private final static int FAMILY_OFFSET = 30;                                                    //delay in milliseconds between the cards of a family moving to the foundations
+
+    private long touchedStacks = 0;                                                                 //tableau stacks which got cards since the last testAfterMove()
+
     public Spider() {
         setNumberOfDecks(2);
         setNumberOfStacks(23);
         setFirstMainStackID(18);
         setLastTableauID(9);
+        setFoundationStackIDs(10, 17);
     }
 
     public void setStacks(RelativeLayout layoutGame, boolean isLandscape) {
@@ -67,17 +72,17 @@ public class Spider extends Game {
             stacks[i].setX(startPos + spacing * i + Card.width * i);
             stacks[i].setY(stacks[18].getY() + Card.height + (isLandscape ? Card.width / 4 : Card.width / 2) + 1);
         }
+    }
+
+    @Override
+    public void load() {
         //set card families depending on settings
         loadCards();
     }
 
     public boolean winTest() {
         //if every foundation stacks is full, game is won
-        for (int i = 0; i < 8; i++)
-            if (stacks[10 + i].getSize() != 13)
-                return false;
-
-        return true;
+        return foundationsAreFull();
     }
 
     public void dealCards() {
@@ -102,12 +107,6 @@ public class Spider extends Game {
                 moveToStack(getMainStack().getTopCard(), stacks[18 + i], OPTION_NO_RECORD);
             }
         }
-
-        for (int i = 0; i < 5; i++) {
-            for (int j = 0; j < 10; j++) {
-                stacks[18 + i].getCard(i).view.bringToFront();
-            }
-        }
     }
 
     public void onMainStackTouch() {
@@ -134,7 +133,7 @@ public class Spider extends Game {
 
             moveToStack(cards, destinations, OPTION_REVERSED_RECORD);
             //test if a card family is now full
-            testAfterMoveHandler.sendEmptyMessageDelayed(0, 100);
+            postMovePipeline.afterMove();
         }
     }
 
@@ -239,65 +238,81 @@ public class Spider extends Game {
 
     @Override
     public boolean testIfMainStackTouched(float X, float Y) {
-        return (stacks[18].isOnLocation(X, Y) ||
-                stacks[19].isOnLocation(X, Y) ||
-                stacks[20].isOnLocation(X, Y) ||
-                stacks[21].isOnLocation(X, Y) ||
-                stacks[22].isOnLocation(X, Y));
+        //main stacks are 18 to 22
+        return (stackIndex.query(X, Y) & (0x1FL << 18)) != 0;
     }
 
     @Override
     public void testAfterMove() {
         /*
-         * after a move, test if somewhere is a complete card family, if so, move it to foundations
+         * after a move, test if somewhere is a complete card family, if so, move it to foundations.
+         * A family can only be completed on stacks which got new cards, so only test these. All
+         * families move in one relayout batch, the cards of each one start one after another.
          */
-        for (int i = 0; i < 10; i++) {
-            Stack currentStack = stacks[i];
+        long touched = touchedStacks;
+        boolean movedFamily = false;
 
-            if (currentStack.isEmpty() || currentStack.getTopCard().getValue() != 1)
-                continue;
+        touchedStacks = 0;
+        Stack.beginRelayoutBatch();
 
-            for (int j = currentStack.getFirstUpCardPos(); j < currentStack.getSize(); j++) {
-                if (j == -1)
-                    break;
+        while (touched != 0) {
+            Stack currentStack = stacks[Long.numberOfTrailingZeros(touched)];
+            touched &= touched - 1;
 
-                Card cardToTest = currentStack.getCard(j);
+            int j = getCompleteFamilyPos(currentStack);
 
-                if (cardToTest.getValue() == 13 && testCardsUpToTop(currentStack, j, SAME_COLOR)) {
-                    Stack foundationStack = stacks[10];
+            if (j != -1) {
+                Stack foundationStack = stacks[10];
 
-                    while (!foundationStack.isEmpty())
-                        foundationStack = stacks[foundationStack.getId() + 1];
+                while (!foundationStack.isEmpty())
+                    foundationStack = stacks[foundationStack.getId() + 1];
 
-                    ArrayList<Card> cards = new ArrayList<>();
-                    ArrayList<Stack> origins = new ArrayList<>();
+                ArrayList<Card> cards = new ArrayList<>();
+                ArrayList<Stack> origins = new ArrayList<>();
 
-                    for (int k = j; k < currentStack.getSize(); k++) {
-                        cards.add(currentStack.getCard(k));
-                        origins.add(currentStack);
-                    }
-
-                    recordList.addAtEndOfLastEntry(cards, origins);
-                    moveToStack(cards, foundationStack, OPTION_NO_RECORD);
-                    scores.update(200);
+                for (int k = j; k < currentStack.getSize(); k++) {
+                    cards.add(currentStack.getCard(k));
+                    origins.add(currentStack);
+                    animate.setStartOffset(currentStack.getCard(k), (currentStack.getSize() - 1 - k) * FAMILY_OFFSET);
+                }
 
-                    //turn the card below up, if there is one
-                    if (!currentStack.isEmpty() && !currentStack.getTopCard().isUp()) {
-                        currentStack.getTopCard().flipWithAnim();
-                    }
+                recordList.addAtEndOfLastEntry(cards, origins);
+                moveToStack(cards, foundationStack, OPTION_NO_RECORD);
+                scores.update(200);
 
-                    testIfWonHandler.sendEmptyMessageDelayed(0, 200);
-                    break;
+                //turn the card below up, if there is one
+                if (!currentStack.isEmpty() && !currentStack.getTopCard().isUp()) {
+                    currentStack.getTopCard().flipWithAnim();
                 }
+
+                movedFamily = true;
             }
         }
+
+        Stack.endRelayoutBatch();
+
+        if (movedFamily) {
+            postMovePipeline.testIfWon();
+        }
+    }
+
+    /**
+     * Remembers the tableau stacks which got new cards, so testAfterMove() only needs to test them.
+     */
+    @Override
+    public void updateCounters(Stack stack, int cardsDelta, int faceDownDelta) {
+        super.updateCounters(stack, cardsDelta, faceDownDelta);
+
+        if (cardsDelta > 0 && stack.getId() <= getLastTableauId()) {
+            touchedStacks |= 1L << stack.getId();
+        }
     }
 
     private void loadCards() {
         /*
          * load the card families depending on the preference
          */
-        switch (getSharedString(PREF_KEY_SPIDER_DIFFICULTY_OLD, DEFAULT_SPIDER_DIFFICULTY)) {
+        switch (settings.spiderDifficulty) {
             case "1":
                 setCardFamilies(3, 3, 3, 3);
                 break;
@@ -318,6 +333,9 @@ public class Spider extends Game {
     }
 
     public boolean autoCompleteStartTest() {
+        if (!tableauIsFacedUp())
+            return false;
+
         for (int i = 0; i < 4; i++)
             if (!stacks[18 + i].isEmpty())
                 return false;
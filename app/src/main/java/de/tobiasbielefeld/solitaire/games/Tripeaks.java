@@ -30,6 +30,12 @@ import static de.tobiasbielefeld.solitaire.SharedData.*;
 
 /**
  *  Tripeaks is nearly the same as Golf, but with a different field layout
+ *
+ *  The peaks are saved as a dependency graph: Every position counts the cards which cover it.
+ *  When a position gets empty, the counters of the (up to two) positions below are decreased, and
+ *  positions which reach zero are flipped in testAfterMove(). The free cards which are faced up
+ *  are kept in a bit mask for the hints. Everything is updated in updateCounters(), which the
+ *  stacks call on every change.
  */
 
 public class Tripeaks extends Game {
@@ -38,6 +44,11 @@ public class Tripeaks extends Game {
     //with index 0 are the stacks with index 3 and 3+1
     int[] stackAboveID = new int[]{3, 5, 7, 9, 10, 12, 13, 15, 16, 18, 19, 20, 21, 22, 23, 24, 25, 26};//28
 
+    private long[] coveredMask = new long[28];                                                      //positions which are covered by each position
+    private int[] blockerCount = new int[28];                                                       //number of cards covering each position
+    private long exposedMask = 0;                                                                   //positions which got free since the last testAfterMove()
+    private long playableMask = 0;                                                                  //free positions with a faced up card
+
     public Tripeaks() {
 
         setNumberOfDecks(1);
@@ -48,6 +59,11 @@ public class Tripeaks extends Game {
         setFirstMainStackID(29);
         setDirections(0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0);
         setSingleTapeEnabled(true);
+
+        for (int i = 0; i < 18; i++) {
+            coveredMask[stackAboveID[i]] |= 1L << i;
+            coveredMask[stackAboveID[i] + 1] |= 1L << i;
+        }
     }
 
     public void setStacks(RelativeLayout layoutGame, boolean isLandscape) {
@@ -95,12 +111,7 @@ public class Tripeaks extends Game {
     }
 
     public boolean winTest() {
-        for (int i = 0; i <= getLastTableauId(); i++) {
-            if (!stacks[i].isEmpty())
-                return false;
-        }
-
-        return true;
+        return tableauIsEmpty();
     }
 
     public void dealCards() {
@@ -120,7 +131,7 @@ public class Tripeaks extends Game {
         if (getMainStack().getSize() > 0) {
             moveToStack(getMainStack().getTopCard(), getDiscardStack());
         } /*else if (!getDiscardStack().isEmpty()){
-            recordList.add(getDiscardStack().currentCards);
+            recordList.add(getDiscardStack().getCards());
 
             while (getDiscardStack().getSize() > 0)
                 moveToStack(getDiscardStack().getTopCard(), getMainStack(), OPTION_NO_RECORD);
@@ -145,9 +156,11 @@ public class Tripeaks extends Game {
     }
 
     public CardAndStack hintTest() {
-        for (int i = 0; i < 28; i++) {
-            if (stacks[i].isEmpty() || !stacks[i].getTopCard().isUp())
-                continue;
+        long playable = playableMask;
+
+        while (playable != 0) {
+            int i = Long.numberOfTrailingZeros(playable);
+            playable &= playable - 1;
 
             if (!hint.hasVisited(stacks[i].getTopCard()) && stacks[i].getTopCard().test(getDiscardStack()))
                 return new CardAndStack(stacks[i].getTopCard(), getDiscardStack());
@@ -181,21 +194,58 @@ public class Tripeaks extends Game {
     }
 
     public void testAfterMove() {
-        for (int i = 0; i < 18; i++) {
-            if (!stacks[i].isEmpty() && !stacks[i].getTopCard().isUp() && stackIsFree(stacks[i])) {
+        //only the positions which got free can have new cards to flip
+        long exposed = exposedMask;
+        exposedMask = 0;
+
+        while (exposed != 0) {
+            int i = Long.numberOfTrailingZeros(exposed);
+            exposed &= exposed - 1;
+
+            if (!stacks[i].isEmpty() && !stacks[i].getTopCard().isUp() && blockerCount[i] == 0) {
                 stacks[i].getTopCard().flipWithAnim();
             }
         }
     }
 
-    private boolean stackIsFree(Stack stack) {
-        if (stack.getId() > 17)
-            return true;
+    /**
+     * Updates the dependency graph, after cards were added to, removed from or flipped on a stack.
+     */
+    @Override
+    public void updateCounters(Stack stack, int cardsDelta, int faceDownDelta) {
+        super.updateCounters(stack, cardsDelta, faceDownDelta);
+
+        int id = stack.getId();
+
+        if (id > getLastTableauId())
+            return;
+
+        //a position which got empty or got its first card changes the positions below it
+        if ((cardsDelta < 0 && stack.isEmpty()) || (cardsDelta > 0 && stack.getSize() == cardsDelta)) {
+            long covered = coveredMask[id];
+
+            while (covered != 0) {
+                int i = Long.numberOfTrailingZeros(covered);
+                covered &= covered - 1;
 
-        Stack stackAbove1 = stacks[stackAboveID[stack.getId()]];
-        Stack stackAbove2 = stacks[stackAboveID[stack.getId()] + 1];
+                if (cardsDelta < 0 && --blockerCount[i] == 0) {
+                    exposedMask |= 1L << i;
+                } else if (cardsDelta > 0) {
+                    blockerCount[i]++;
+                }
+
+                updatePlayable(i);
+            }
+        }
+
+        updatePlayable(id);
+    }
 
-        return stackAbove1.isEmpty() && stackAbove2.isEmpty();
+    private void updatePlayable(int id) {
+        if (!stacks[id].isEmpty() && stacks[id].getTopCard().isUp() && blockerCount[id] == 0)
+            playableMask |= 1L << id;
+        else
+            playableMask &= ~(1L << id);
     }
 
 }
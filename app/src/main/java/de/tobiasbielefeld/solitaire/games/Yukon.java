@@ -40,6 +40,8 @@ public class Yukon extends Game {
         setNumberOfStacks(11);
         setDealFromID(0);
         setLastTableauID(6);
+        setFoundationStackIDs(7, 10);
+        setAutoCompleteSolverStacks(0, 6);
 
     }
 
@@ -69,11 +71,7 @@ public class Yukon extends Game {
 
     public boolean winTest() {
         //won if foundation stacks are full
-        for (int i = 7; i < 11; i++)
-            if (stacks[i].getSize() != 13)
-                return false;
-
-        return true;
+        return foundationsAreFull();
     }
 
     public void dealCards() {
@@ -118,7 +116,7 @@ public class Yukon extends Game {
     }
 
     boolean checkRules(Stack stack, Card card) {
-        boolean defaultRules = sharedStringEquals(PREF_KEY_YUKON_RULES_OLD, DEFAULT_YUKON_RULES);
+        boolean defaultRules = settings.yukonRules.equals(DEFAULT_YUKON_RULES);
 
         return (defaultRules && (stack.getTopCard().getColor() % 2 != card.getColor() % 2)) ||
                 (!defaultRules && (stack.getTopCard().getColor() == card.getColor()));
@@ -196,10 +194,24 @@ public class Yukon extends Game {
         return null;
     }
 
+    public CardAndStack autoPlayTest() {
+        for (int i = 0; i < 7; i++) {
+            CardAndStack cardAndStack = safeFoundationMove(stacks[i]);
+
+            if (cardAndStack != null)
+                return cardAndStack;
+        }
+
+        return null;
+    }
+
     public boolean autoCompleteStartTest() {
         /*
          * start auto complete if every card is in the right order
          */
+        if (!tableauIsFacedUp())
+            return false;
+
         for (int i = 0; i < 7; i++) {
             if (stacks[i].isEmpty())
                 continue;
@@ -27,98 +27,123 @@ import android.view.animation.Animation;
 import android.view.animation.AnimationUtils;
 import android.view.animation.TranslateAnimation;
 
-import java.util.Random;
+import java.util.ArrayList;
 
 import de.tobiasbielefeld.solitaire.R;
 import de.tobiasbielefeld.solitaire.classes.Card;
 import de.tobiasbielefeld.solitaire.classes.CustomImageView;
 import de.tobiasbielefeld.solitaire.classes.Stack;
-import de.tobiasbielefeld.solitaire.handler.AfterWonHandler;
 import de.tobiasbielefeld.solitaire.ui.GameManager;
 
 import static de.tobiasbielefeld.solitaire.SharedData.*;
 
 /**
  * class for all card animations. Like moving cards and fading them out and in for hints.
- * The win animation is split up in two parts: First move every card to the middle of the screen,
- * then move them out the screen borders
+ * The win animation is drawn by the win animation view.
  */
 
 public class Animate {
 
-    public AfterWonHandler afterWonHandler;
     private GameManager gm;
+    private int animationsInFlight = 0;                                                             //number of card views which are currently animating
+    private long[] startOffsets = new long[0];                                                      //delay for the next movement of each card, used for staggered movements
+    private ArrayList<Runnable> idleCallbacks = new ArrayList<>();                                  //runnables to call after the card animations are over
+    private ArrayList<Runnable> runningCallbacks = new ArrayList<>();
+    private boolean idleCheckPosted = false;
+    private boolean instantMovements = false;                                                       //place the cards directly at their destination, used by the instant finish
+
+    private Runnable idleCheck = new Runnable() {
+        @Override
+        public void run() {
+            idleCheckPosted = false;
+
+            if (!isIdle() || idleCallbacks.isEmpty()) {
+                return;
+            }
+
+            //swap the lists, so the callbacks can register themselves again
+            ArrayList<Runnable> callbacks = idleCallbacks;
+            idleCallbacks = runningCallbacks;
+            runningCallbacks = callbacks;
+
+            for (int i = 0; i < runningCallbacks.size(); i++) {
+                runningCallbacks.get(i).run();
+            }
+
+            runningCallbacks.clear();
+        }
+    };
 
     public Animate(GameManager gm) {
         this.gm = gm;
-        afterWonHandler = new AfterWonHandler(gm);
     }
 
     /**
-     * Shows the win animation: Every card will move to the center of the screen. In the handler
-     * after that the phase2 will be called and move every card out the screen.
+     * Runs the given runnable as soon as no card is animating anymore. If nothing is animating
+     * right now, it will be run with the next message of the ui thread. Every runnable is only
+     * added once, until it was run.
+     *
+     * @param runnable The runnable to call
      */
-    public void winAnimation() {
-        for (Card card : cards) {
-            card.setLocation(gm.layoutGame.getWidth() / 2 - Card.width / 2, gm.layoutGame.getHeight() / 2 - Card.height / 2);
+    public void awaitIdle(Runnable runnable) {
+        if (!idleCallbacks.contains(runnable)) {
+            idleCallbacks.add(runnable);
         }
 
-        afterWonHandler.sendEmptyMessageDelayed(0, 100);
+        postIdleCheck();
     }
 
     /**
-     * Moves every card out the screen as phase2 of the win animation
+     * Called from the custom image view when a card starts animating.
      */
-    public void wonAnimationPhase2() {
-        int direction = 0;
-        int counter = 0;
-        Random rand = new Random();
+    public void onCardAnimationStart() {
+        animationsInFlight++;
+    }
 
-        for (Card card : cards) {
-            switch (direction) {
-                case 0:
-                default://right side
-                    card.setLocation(gm.layoutGame.getWidth(), counter);
-                    counter += Card.height;
-
-                    if (counter >= gm.layoutGame.getHeight()) {
-                        direction = 1;
-                        counter = rand.nextInt(Card.height);
-                    }
-
-                    break;
-                case 1://bottom side
-                    card.setLocation(counter, gm.layoutGame.getHeight() + Card.height);
-                    counter += Card.width;
-
-                    if (counter >= gm.layoutGame.getWidth()) {
-                        direction = 2;
-                        counter = rand.nextInt(Card.width);
-                    }
-
-                    break;
-                case 2://left side
-                    card.setLocation(-Card.width, counter);
-                    counter += Card.height;
-
-                    if (counter >= gm.layoutGame.getHeight()) {
-                        direction = 3;
-                        counter = rand.nextInt(Card.height);
-                    }
-                    break;
-                case 3://top side
-                    card.setLocation(counter, -Card.height);
-                    counter += Card.width;
-
-                    if (counter >= gm.layoutGame.getWidth()) {
-                        direction = 0;
-                        counter = rand.nextInt(Card.width);
-                    }
-                    break;
-            }
+    /**
+     * Called from the custom image view when the animation of a card has finished.
+     */
+    public void onCardAnimationEnd() {
+        //views of a previous activity can still report the end of their animation
+        if (animationsInFlight > 0) {
+            animationsInFlight--;
+        }
+
+        if (animationsInFlight == 0 && !idleCallbacks.isEmpty()) {
+            postIdleCheck();
+        }
+    }
+
+    /**
+     * The check is posted instead of run directly, because the animations end while the layout
+     * is drawn and the callbacks may start new animations.
+     */
+    private void postIdleCheck() {
+        if (!idleCheckPosted) {
+            idleCheckPosted = true;
+            gm.layoutGame.post(idleCheck);
         }
     }
 
+    /**
+     * Shows the win animation: Every card will move to the center of the screen, then out the
+     * screen borders. This is drawn on one view in the overlay, after it finished the restart
+     * dialog is shown. With the instant finish setting, the dialog is shown right away.
+     */
+    public void winAnimation() {
+        if (settings.instantFinish) {
+            gm.showRestartDialog();
+            return;
+        }
+
+        gm.winAnimationView.start(cards, gm.layoutGame.getWidth(), gm.layoutGame.getHeight(), new Runnable() {
+            @Override
+            public void run() {
+                gm.showRestartDialog();
+            }
+        });
+    }
+
     /**
      * Moves a card to another stack, fades the card out and fades it in on the origin as a hint
      *
@@ -127,7 +152,6 @@ public class Animate {
      * @param destination The destination of the movement
      */
     public void cardHint(final Card card, final int offset, final Stack destination) {
-        card.view.bringToFront();
         card.saveOldLocation();
         PointF pointAtStack = destination.getPosition(offset);
         float dist_x = pointAtStack.x - card.getX();
@@ -194,6 +218,7 @@ public class Animate {
             }
 
             public void onAnimationEnd(Animation animation) {
+                hint.onCardHintEnd();
             }
 
             public void onAnimationRepeat(Animation animation) {
@@ -214,6 +239,18 @@ public class Animate {
      */
     public void moveCard(final Card card, final float pX, final float pY) {
         final CustomImageView view = card.view;
+
+        if (instantMovements) {
+            if (card.getId() < startOffsets.length) {
+                startOffsets[card.getId()] = 0;
+            }
+
+            view.stopAnim();
+            view.setX(pX);
+            view.setY(pY);
+            return;
+        }
+
         int distance = (int) Math.sqrt(Math.pow(pX - view.getX(), 2) + Math.pow(pY - view.getY(), 2));
 
         TranslateAnimation animation = new TranslateAnimation(0, pX - view.getX(), 0, pY - view.getY());
@@ -221,24 +258,68 @@ public class Animate {
         animation.setDuration(distance * 100 / Card.width);
         animation.setFillEnabled(true);
 
+        if (card.getId() < startOffsets.length && startOffsets[card.getId()] > 0) {
+            animation.setStartOffset(startOffsets[card.getId()]);
+            startOffsets[card.getId()] = 0;
+        }
+
         view.setDestination(pX,pY);
         view.startAnimation(animation);
     }
 
-    public boolean cardIsAnimating() {
-        for (Card card : cards) {
-            if (card.view.isAnimating()) {
-                return true;
-            }
+    /**
+     * Delays the next movement of a card, so multiple cards moved at once can start one after
+     * another. The delay is used once.
+     *
+     * @param card The card to delay
+     * @param offset The delay in milliseconds
+     */
+    public void setStartOffset(Card card, long offset) {
+        if (startOffsets.length != cards.length) {
+            startOffsets = new long[cards.length];
         }
 
-        return false;
+        startOffsets[card.getId()] = offset;
+    }
+
+    /**
+     * While enabled, card movements don't animate, the cards are placed at their destination
+     * instead.
+     *
+     * @param value True to place the cards directly, false to animate them again
+     */
+    public void setInstantMovements(boolean value) {
+        instantMovements = value;
+    }
+
+    /**
+     * @return True if no card is animating at the moment
+     */
+    public boolean isIdle() {
+        return animationsInFlight == 0;
+    }
+
+    /**
+     * @return The number of card views which are currently animating
+     */
+    public int getAnimationsInFlight() {
+        return animationsInFlight;
     }
 
     public void reset() {
+        gm.winAnimationView.cancel();
+
         for (Card card : cards) {
             card.view.stopAnim();
         }
+
+        //in case an end of an animation got lost
+        animationsInFlight = 0;
+        instantMovements = false;
+
+        for (int i = 0; i < startOffsets.length; i++) {
+            startOffsets[i] = 0;
+        }
     }
 
     /**
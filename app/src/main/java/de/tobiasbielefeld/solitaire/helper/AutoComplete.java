@@ -20,7 +20,11 @@ package de.tobiasbielefeld.solitaire.helper;
 
 import android.view.View;
 
-import de.tobiasbielefeld.solitaire.handler.AutoCompleteHandler;
+import java.util.ArrayList;
+
+import de.tobiasbielefeld.solitaire.classes.Card;
+import de.tobiasbielefeld.solitaire.classes.CardAndStack;
+import de.tobiasbielefeld.solitaire.classes.Stack;
 import de.tobiasbielefeld.solitaire.ui.GameManager;
 
 import static de.tobiasbielefeld.solitaire.SharedData.*;
@@ -30,30 +34,162 @@ import static de.tobiasbielefeld.solitaire.SharedData.*;
  *  every card from the tableau and the stock if they can be placed on the foundation.
  *  it continues until the last card was moved to the foundation. after that,
  *  the win animation will be started
+ *
+ *  Phase one (movements around the tableau) moves one card after another, each time after the
+ *  animations are over. Phase two (movements to the foundations) gets all movements of the game
+ *  at once while the stacks don't update their layout. Then the cards start flying one after
+ *  another with a small delay, so the whole phase takes about the same time, regardless of the
+ *  number of cards.
+ *
+ *  With the instant finish setting, both phases are applied directly one after another without
+ *  animations and the game is won in the same frame.
  */
 
 public class AutoComplete {
 
-    public AutoCompleteHandler autoCompleteHandler = new AutoCompleteHandler();
+    private final static int PHASE_TWO_DURATION = 800;                                              //time between the start of the first and the last card movement in phase two
+    private final static int MAX_START_OFFSET = 60;                                                 //maximum delay between two card movements in phase two
+    private final static int MAX_INSTANT_MOVES = 1000;                                              //safety limit for phase one of the instant finish, in case a game moves cards back and forth
+
     private boolean running = false;                                                                  //shows if the autocomplete is still running
     private boolean buttonShown = false;
     private GameManager gm;
+    private ArrayList<Card> plannedCards = new ArrayList<>();
+
+    private Runnable phaseOne = new Runnable() {
+        @Override
+        public void run() {
+            runPhaseOne();
+        }
+    };
+
+    private Runnable finish = new Runnable() {
+        @Override
+        public void run() {
+            if (running) {
+                reset();
+                gameLogic.testIfWon();
+            }
+        }
+    };
 
     public AutoComplete(GameManager gm) {
         this.gm = gm;
     }
 
     public void reset() {
-        autoCompleteHandler.reset();
         hideButton();
         running = false;
+        plannedCards.clear();
     }
 
     public void start() {
         running = true;
         hideButton();
-        autoCompleteHandler.reset();
-        autoCompleteHandler.sendEmptyMessage(0);
+
+        if (settings.instantFinish) {
+            finishInstantly();
+        } else {
+            runPhaseOne();
+        }
+    }
+
+    /**
+     * Applies every movement of both phases at once. The movements still go through moveToStack(),
+     * so the score is updated like with the animated auto complete. testAfterMove() is called
+     * directly after each movement of phase one, because some games need it to continue (like the
+     * full card families in Spider). The stacks update their layout once at the end and the cards
+     * are placed without animation.
+     */
+    private void finishInstantly() {
+        CardAndStack cardAndStack;
+        int moves = 0;
+
+        animate.setInstantMovements(true);
+        Stack.beginRelayoutBatch();
+
+        while (moves++ < MAX_INSTANT_MOVES && (cardAndStack = currentGame.autoCompletePhaseOne()) != null) {
+            ArrayList<Card> cards = new ArrayList<>();
+            Stack origin = cardAndStack.getCard().getStack();
+
+            for (int i = origin.getIndexOfCard(cardAndStack.getCard()); i < origin.getSize(); i++)
+                cards.add(origin.getCard(i));
+
+            moveToStack(cards, cardAndStack.getStack());
+            currentGame.testAfterMove();
+        }
+
+        moves = 0;
+
+        while (moves++ < cards.length && (cardAndStack = currentGame.autoCompletePhaseTwo()) != null) {
+            moveToStack(cardAndStack.getCard(), cardAndStack.getStack());
+        }
+
+        Stack.endRelayoutBatch();
+        animate.setInstantMovements(false);
+
+        reset();
+        gameLogic.testIfWon();
+    }
+
+    /**
+     * Does one movement of phase one and waits for the end of the animations (and the tests after
+     * the movement) before the next one. If there is no movement left, phase two starts.
+     */
+    private void runPhaseOne() {
+        if (!running) {
+            return;
+        }
+
+        if (!animate.isIdle()) {
+            animate.awaitIdle(phaseOne);
+            return;
+        }
+
+        CardAndStack cardAndStack = currentGame.autoCompletePhaseOne();
+
+        if (cardAndStack == null) {
+            runPhaseTwo();
+            return;
+        }
+
+        //move the card and every card above it
+        ArrayList<Card> cards = new ArrayList<>();
+        Stack origin = cardAndStack.getCard().getStack();
+
+        for (int i = origin.getIndexOfCard(cardAndStack.getCard()); i < origin.getSize(); i++)
+            cards.add(origin.getCard(i));
+
+        moveToStack(cards, cardAndStack.getStack());
+        animate.awaitIdle(phaseOne);
+    }
+
+    /**
+     * Collects every movement of phase two. The cards are already moved on the stacks, but the
+     * layout is only updated after the last one, with a growing start offset for every card.
+     */
+    private void runPhaseTwo() {
+        CardAndStack cardAndStack;
+
+        plannedCards.clear();
+        Stack.beginRelayoutBatch();
+
+        while (plannedCards.size() < cards.length
+                && (cardAndStack = currentGame.autoCompletePhaseTwo()) != null) {
+            plannedCards.add(cardAndStack.getCard());
+            moveToStack(cardAndStack.getCard(), cardAndStack.getStack());
+        }
+
+        int offset = plannedCards.isEmpty() ? 0 : min(PHASE_TWO_DURATION / plannedCards.size(), MAX_START_OFFSET);
+
+        for (int i = 0; i < plannedCards.size(); i++) {
+            animate.setStartOffset(plannedCards.get(i), i * offset);
+        }
+
+        Stack.endRelayoutBatch();
+        plannedCards.clear();
+
+        animate.awaitIdle(finish);
     }
 
     public boolean isRunning() {
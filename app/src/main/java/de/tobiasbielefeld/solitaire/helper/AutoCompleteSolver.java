@@ -0,0 +1,232 @@
+/*
+ * Copyright (C) 2016  Tobias Bielefeld
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * If you want to contact me, send me an e-mail at tobias.bielefeld@gmail.com
+ */
+
+package de.tobiasbielefeld.solitaire.helper;
+
+import android.os.Handler;
+
+import de.tobiasbielefeld.solitaire.classes.Card;
+import de.tobiasbielefeld.solitaire.classes.Stack;
+
+import static de.tobiasbielefeld.solitaire.SharedData.*;
+
+/**
+ * Tries to prove that the current game can be won by the auto complete, even if the structural
+ * test of the game (autoCompleteStartTest()) doesn't pass yet. If it succeeds, the auto complete
+ * button is shown (or the auto complete starts directly with the instant finish setting).
+ *
+ * Only games which call setAutoCompleteSolverStacks() are supported: Phase two of their auto
+ * complete moves the top cards of these stacks to the foundations, which are built up in the
+ * same color from the ace. Moving a card to the foundations never blocks another movement, so
+ * if moving every fitting card brings all cards to the foundations, the game is won with only
+ * these safe moves. Faced down cards are never used, the search doesn't know more than the player.
+ * So it only helps games whose start test also needs ordered runs on a faced up tableau: FreeCell,
+ * Yukon, Gypsy and FortyEight. In Klondike a faced up tableau already passes the start test.
+ *
+ * The board is copied to plain arrays on the ui thread, the search itself runs on a background
+ * thread and is limited to MAX_SEARCH_TIME. Every card movement cancels a running search.
+ */
+
+public class AutoCompleteSolver {
+
+    private final static long MAX_SEARCH_TIME = 100;                                                //time limit for one search in milliseconds
+
+    private volatile int generation = 0;                                                            //increased on every cancel, so old results are thrown away
+    private Handler handler = new Handler();
+
+    /**
+     * Starts a search for the current board, if the game supports it. Nothing happens if the
+     * board contains cards which can't be used by the search.
+     */
+    public void start() {
+        if (!currentGame.hasAutoCompleteSolver()) {
+            return;
+        }
+
+        final Board board = Board.create();
+
+        if (board == null) {
+            return;
+        }
+
+        final int startGeneration = ++generation;
+
+        new Thread(new Runnable() {
+            @Override
+            public void run() {
+                long deadline = System.currentTimeMillis() + MAX_SEARCH_TIME;
+
+                if (board.solve(deadline, AutoCompleteSolver.this, startGeneration)) {
+                    handler.post(new Runnable() {
+                        @Override
+                        public void run() {
+                            onSolved(startGeneration);
+                        }
+                    });
+                }
+            }
+        }).start();
+    }
+
+    /**
+     * Stops a running search and throws away its result. Called on every card movement and when
+     * a new game starts.
+     */
+    public void cancel() {
+        generation++;
+    }
+
+    private boolean isCancelled(int startGeneration) {
+        return startGeneration != generation;
+    }
+
+    private void onSolved(int startGeneration) {
+        if (isCancelled(startGeneration) || gameLogic.hasWon() || autoComplete.isRunning()
+                || autoComplete.buttonIsShown()) {
+            return;
+        }
+
+        if (settings.instantFinish) {
+            autoComplete.start();
+        } else {
+            autoComplete.showButton();
+        }
+    }
+
+    /**
+     * Copy of the board with only the values and colors of the cards.
+     */
+    private static class Board {
+
+        private int[] foundationValues, foundationColors;                                           //value and color of the top card of every foundation, 0 if empty
+        private int[][] pileValues, pileColors;                                                     //cards of the source stacks, from bottom to top
+        private int[] pileSizes;
+        private int remainingCards;
+
+        /**
+         * Copies the current board. Has to be called on the ui thread.
+         *
+         * @return The copy, or null if there is a card which the search can't move
+         */
+        static Board create() {
+            int firstFoundation = currentGame.getFirstFoundationID();
+            int lastFoundation = currentGame.getLastFoundationID();
+            int numberOfPiles = 0;
+
+            for (Stack stack : stacks) {
+                if (currentGame.isAutoCompleteSolverSource(stack.getId()) && !stack.isEmpty()) {
+                    numberOfPiles++;
+                }
+            }
+
+            Board board = new Board();
+            board.foundationValues = new int[lastFoundation - firstFoundation + 1];
+            board.foundationColors = new int[lastFoundation - firstFoundation + 1];
+            board.pileValues = new int[numberOfPiles][];
+            board.pileColors = new int[numberOfPiles][];
+            board.pileSizes = new int[numberOfPiles];
+
+            int pile = 0;
+
+            for (Stack stack : stacks) {
+                int id = stack.getId();
+
+                if (stack.isEmpty()) {
+                    continue;
+                }
+
+                if (id >= firstFoundation && id <= lastFoundation) {
+                    board.foundationValues[id - firstFoundation] = stack.getTopCard().getValue();
+                    board.foundationColors[id - firstFoundation] = stack.getTopCard().getColor();
+                } else if (currentGame.isAutoCompleteSolverSource(id)) {
+                    board.pileValues[pile] = new int[stack.getSize()];
+                    board.pileColors[pile] = new int[stack.getSize()];
+                    board.pileSizes[pile] = stack.getSize();
+
+                    for (int i = 0; i < stack.getSize(); i++) {
+                        Card card = stack.getCard(i);
+
+                        if (!card.isUp()) {
+                            return null;
+                        }
+
+                        board.pileValues[pile][i] = card.getValue();
+                        board.pileColors[pile][i] = card.getColor();
+                    }
+
+                    board.remainingCards += stack.getSize();
+                    pile++;
+                } else {
+                    //cards on other stacks never reach the foundations in the auto complete
+                    return null;
+                }
+            }
+
+            return board;
+        }
+
+        /**
+         * Moves every fitting card to the foundations until no card is left or nothing fits
+         * anymore.
+         *
+         * @return True if every card reached the foundations in time
+         */
+        boolean solve(long deadline, AutoCompleteSolver solver, int startGeneration) {
+            boolean moved = true;
+
+            while (moved && remainingCards > 0) {
+                if (solver.isCancelled(startGeneration) || System.currentTimeMillis() > deadline) {
+                    return false;
+                }
+
+                moved = false;
+
+                for (int pile = 0; pile < pileSizes.length; pile++) {
+                    if (pileSizes[pile] > 0 && moveTopCardToFoundation(pile)) {
+                        moved = true;
+                    }
+                }
+            }
+
+            return remainingCards == 0;
+        }
+
+        /**
+         * Moves the top card of a pile to a fitting foundation and removes it from the pile.
+         *
+         * @return True if the card was moved
+         */
+        private boolean moveTopCardToFoundation(int pile) {
+            int value = pileValues[pile][pileSizes[pile] - 1];
+            int color = pileColors[pile][pileSizes[pile] - 1];
+
+            for (int i = 0; i < foundationValues.length; i++) {
+                if ((value == 1 && foundationValues[i] == 0)
+                        || (foundationValues[i] == value - 1 && foundationColors[i] == color && value > 1)) {
+                    foundationValues[i] = value;
+                    foundationColors[i] = color;
+                    pileSizes[pile]--;
+                    remainingCards--;
+                    return true;
+                }
+            }
+
+            return false;
+        }
+    }
+}
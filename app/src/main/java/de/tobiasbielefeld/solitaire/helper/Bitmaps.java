@@ -96,9 +96,9 @@ public class Bitmaps {
      */
     public Bitmap getCardFront(int posX, int posY) {
 
-        if (cardFront == null || savedCardTheme != getSharedInt(CARD_DRAWABLES, 1)) {
+        if (cardFront == null || savedCardTheme != settings.cardTheme) {
 
-            savedCardTheme = getSharedInt(CARD_DRAWABLES, 1);
+            savedCardTheme = settings.cardTheme;
             int resID;
 
             switch (savedCardTheme) {
@@ -19,8 +19,11 @@
 package de.tobiasbielefeld.solitaire.helper;
 
 import android.view.View;
+import android.view.ViewGroup;
 import android.widget.RelativeLayout;
 
+import java.util.ArrayList;
+
 import de.tobiasbielefeld.solitaire.R;
 import de.tobiasbielefeld.solitaire.classes.Card;
 import de.tobiasbielefeld.solitaire.classes.Stack;
@@ -37,6 +40,7 @@ public class CardHighlight {
 
 
     private boolean moveStarted;
+    private ArrayList<Card> liftedCards = new ArrayList<>();                                        //the selected cards, drawn above the highlight
     int padding, width, height;
     private GameManager gm;
 
@@ -56,14 +60,16 @@ public class CardHighlight {
         width = Card.width + padding;
         height = (int) (stack.getTopCard().getY() + Card.height - card.getY() + padding);
 
-        gm.highlight.setLayoutParams(new RelativeLayout.LayoutParams(width,height));
+        setSize(width, height);
         gm.highlight.setX(card.getX()- padding/2);
         gm.highlight.setY(card.getY()- padding/2);
         gm.highlight.setVisibility(View.VISIBLE);
-        gm.highlight.bringToFront();
+        putDownCards();
 
+        //the highlight is drawn above the other cards, so lift the selected cards above it
         for (int i= card.getIndexOnStack();i<stack.getSize();i++){
-            stack.getCard(i).view.bringToFront();
+            stack.getCard(i).setLifted(true);
+            liftedCards.add(stack.getCard(i));
         }
 
         moveStarted = false;
@@ -81,14 +87,47 @@ public class CardHighlight {
             moveStarted = true;
 
             height = (int) (card.getStack().getTopCard().getY() + Card.height - card.getY() + padding);
-            gm.highlight.setLayoutParams(new RelativeLayout.LayoutParams(width,height));
+            setSize(width, height);
         }
 
         gm.highlight.setX(card.getX() - padding/2);
         gm.highlight.setY(card.getY() - padding/2);
     }
 
+    /**
+     * Updates the size of the highlight view, but reuses its layout params instead of creating
+     * new ones.
+     *
+     * @param width The new width
+     * @param height The new height
+     */
+    private void setSize(int width, int height){
+        ViewGroup.LayoutParams params = gm.highlight.getLayoutParams();
+
+        if (params == null) {
+            params = new RelativeLayout.LayoutParams(width, height);
+        } else if (params.width == width && params.height == height) {
+            return;
+        }
+
+        params.width = width;
+        params.height = height;
+        gm.highlight.setLayoutParams(params);
+    }
+
     public void hide(){
         gm.highlight.setVisibility(GONE);
+        putDownCards();
+    }
+
+    /**
+     * Puts the cards lifted in set() back to the draw order of their stacks.
+     */
+    private void putDownCards(){
+        for (Card card : liftedCards) {
+            card.setLifted(false);
+        }
+
+        liftedCards.clear();
     }
 }
@@ -0,0 +1,153 @@
+/*
+ * Copyright (C) 2016  Tobias Bielefeld
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * If you want to contact me, send me an e-mail at tobias.bielefeld@gmail.com
+ */
+
+package de.tobiasbielefeld.solitaire.helper;
+
+import java.util.ArrayList;
+
+import de.tobiasbielefeld.solitaire.R;
+import de.tobiasbielefeld.solitaire.classes.Stack;
+import de.tobiasbielefeld.solitaire.ui.GameManager;
+
+import static de.tobiasbielefeld.solitaire.SharedData.*;
+
+/**
+ * Finds positions in which the player can't make progress anymore. It runs after every move,
+ * when the card animations are over, and detects two cases:
+ *
+ * - No movements left: There is no hint, the main stack can't be used anymore and the game
+ *   doesn't know other useful movements (see Game.hasMovesBesideHints()).
+ * - The stock cycles without progress: Every time all cards are back on the main stack after
+ *   going through it completely, the board hash is saved. If the same board comes up again, the
+ *   last cycle changed nothing.
+ *
+ * A dead end is shown once with a dialog to undo or start a new game, and counted once per game
+ * in the statistics.
+ */
+
+public class DeadEndDetector {
+
+    private ArrayList<Long> cycleHashes = new ArrayList<>();                                        //boards at the start of every stock cycle
+    private boolean stockWasEmptied = false;                                                        //the main stack was empty since the start of the last cycle
+    private boolean reported = false;                                                               //the current dead end was already shown
+    private GameManager gm;
+
+    public DeadEndDetector(GameManager gm) {
+        this.gm = gm;
+    }
+
+    /**
+     * Tests the current board, called from the post move pipeline at the end of a move.
+     */
+    public void test() {
+        int reason;
+
+        if (noMovesLeft()) {
+            reason = R.string.dead_end_no_moves;
+        } else if (stockCycleRepeats()) {
+            reason = R.string.dead_end_stock_cycle;
+        } else {
+            reported = false;
+            return;
+        }
+
+        if (reported) {
+            return;
+        }
+
+        reported = true;
+        gameLogic.recordDeadEnd();
+        gm.showDeadEndDialog(reason);
+    }
+
+    /**
+     * Removes the saved boards, used when a new game starts.
+     */
+    public void reset() {
+        cycleHashes.clear();
+        stockWasEmptied = false;
+        reported = false;
+    }
+
+    /**
+     * The hint test is the most expensive one, so it runs last.
+     */
+    private boolean noMovesLeft() {
+        return !canUseMainStack() && !currentGame.hasMovesBesideHints() && !hint.hasMoves();
+    }
+
+    /**
+     * @return True if there are cards on the main stack, or if the discard stacks can be put back
+     * on it
+     */
+    private boolean canUseMainStack() {
+        if (!currentGame.hasMainStack()) {
+            return false;
+        }
+
+        if (!currentGame.getMainStack().isEmpty()) {
+            return true;
+        }
+
+        return currentGame.hasDiscardStack() && !discardStacksAreEmpty()
+                && (!currentGame.hasLimitedRedeals() || currentGame.getRemainingNumberOfRedeals() > 0);
+    }
+
+    /**
+     * Only games with a main and discard stacks can cycle through the stock. A new cycle starts
+     * when every card is back on the main stack after it was emptied.
+     *
+     * @return True if the board at the start of this cycle was already seen
+     */
+    private boolean stockCycleRepeats() {
+        if (!currentGame.hasMainStack() || !currentGame.hasDiscardStack()) {
+            return false;
+        }
+
+        if (currentGame.getMainStack().isEmpty()) {
+            stockWasEmptied = true;
+            return false;
+        }
+
+        if (!stockWasEmptied || !discardStacksAreEmpty()) {
+            return false;
+        }
+
+        stockWasEmptied = false;
+        long hash = hint.getBoardHash();
+
+        if (cycleHashes.contains(hash)) {
+            return true;
+        }
+
+        cycleHashes.add(hash);
+        return false;
+    }
+
+    private boolean discardStacksAreEmpty() {
+        Stack mainStack = currentGame.getMainStack();
+
+        for (int i = currentGame.getDiscardStack().getId(); i < stacks.length; i++) {
+            if (stacks[i] != mainStack && !stacks[i].isEmpty()) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+}
@@ -0,0 +1,172 @@
+/*
+ * Copyright (C) 2016  Tobias Bielefeld
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * If you want to contact me, send me an e-mail at tobias.bielefeld@gmail.com
+ */
+
+package de.tobiasbielefeld.solitaire.helper;
+
+import android.annotation.TargetApi;
+import android.os.Build;
+import android.view.Choreographer;
+import android.view.MotionEvent;
+
+import de.tobiasbielefeld.solitaire.classes.Card;
+
+import static de.tobiasbielefeld.solitaire.SharedData.*;
+
+/**
+ * Moves the dragged cards. Android delivers the touch points of one frame batched in a single
+ * move event, so this uses all of them (including the historical ones) to calculate the velocity
+ * of the finger. The cards are then placed a bit ahead of the last touch point, so they don't
+ * lag one frame behind the finger.
+ *
+ * The position is applied once per frame with the Choreographer (from Android 4.1 on), older
+ * versions move the cards directly on every move event like before.
+ */
+
+public class DragRenderer {
+
+    private final static int MAX_SAMPLES = 8;                                                       //size of the ring buffer for the touch points
+    private final static long VELOCITY_TIME = 50;                                                   //only use touch points of the last x milliseconds to calculate the velocity
+    private final static float PREDICTION_TIME = 16;                                                //predict the position x milliseconds ahead, about one frame
+
+    private float[] sampleX = new float[MAX_SAMPLES], sampleY = new float[MAX_SAMPLES];
+    private long[] sampleTime = new long[MAX_SAMPLES];
+    private int sampleCount = 0;
+    private boolean framePending = false;
+    private Object frameCallback;                                                                   //Choreographer.FrameCallback, saved as object to stay compatible with old versions
+
+    /**
+     * Adds the touch points of a move event and schedules the movement of the cards for the next
+     * frame.
+     *
+     * @param event The move event
+     * @param offsetX The X-coordinate of the touched view, to get absolute coordinates
+     * @param offsetY The Y-coordinate of the touched view, to get absolute coordinates
+     */
+    public void add(MotionEvent event, float offsetX, float offsetY) {
+        for (int i = 0; i < event.getHistorySize(); i++) {
+            addSample(event.getHistoricalX(i) + offsetX, event.getHistoricalY(i) + offsetY,
+                    event.getHistoricalEventTime(i));
+        }
+
+        addSample(event.getX() + offsetX, event.getY() + offsetY, event.getEventTime());
+
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.JELLY_BEAN) {
+            apply();
+        } else {
+            requestFrame();
+        }
+    }
+
+    /**
+     * Places the cards exactly at the given point, used when the cards are dropped. Also stops
+     * a scheduled movement.
+     *
+     * @param X X-coordinate of the last touch point
+     * @param Y Y-coordinate of the last touch point
+     */
+    public void finish(float X, float Y) {
+        reset();
+        movingCards.move(X, Y);
+        cardHighlight.move(movingCards.first());
+    }
+
+    /**
+     * Removes the saved touch points and a scheduled movement.
+     */
+    public void reset() {
+        sampleCount = 0;
+        cancelFrame();
+    }
+
+    private void addSample(float X, float Y, long time) {
+        int index = sampleCount % MAX_SAMPLES;
+        sampleX[index] = X;
+        sampleY[index] = Y;
+        sampleTime[index] = time;
+        sampleCount++;
+    }
+
+    /**
+     * Moves the cards to the predicted position. The velocity is calculated with the newest touch
+     * point and the oldest one which isn't older than VELOCITY_TIME. The prediction is limited to
+     * a quarter of the card width, so fast direction changes don't overshoot too much.
+     */
+    private void apply() {
+        if (sampleCount == 0 || !movingCards.hasCards()) {
+            return;
+        }
+
+        int newest = (sampleCount - 1) % MAX_SAMPLES;
+        int oldest = newest;
+        int available = Math.min(sampleCount, MAX_SAMPLES);
+
+        for (int i = 1; i < available; i++) {
+            int index = (sampleCount - 1 - i) % MAX_SAMPLES;
+
+            if (sampleTime[newest] - sampleTime[index] > VELOCITY_TIME) {
+                break;
+            }
+
+            oldest = index;
+        }
+
+        float X = sampleX[newest], Y = sampleY[newest];
+        long duration = sampleTime[newest] - sampleTime[oldest];
+
+        if (duration > 0) {
+            float maxDistance = Card.width / 4;
+            float predictionX = (sampleX[newest] - sampleX[oldest]) / duration * PREDICTION_TIME;
+            float predictionY = (sampleY[newest] - sampleY[oldest]) / duration * PREDICTION_TIME;
+
+            X += Math.max(-maxDistance, Math.min(maxDistance, predictionX));
+            Y += Math.max(-maxDistance, Math.min(maxDistance, predictionY));
+        }
+
+        movingCards.move(X, Y);
+        cardHighlight.move(movingCards.first());
+    }
+
+    @TargetApi(Build.VERSION_CODES.JELLY_BEAN)
+    private void requestFrame() {
+        if (framePending) {
+            return;
+        }
+
+        if (frameCallback == null) {
+            frameCallback = new Choreographer.FrameCallback() {
+                @Override
+                public void doFrame(long frameTimeNanos) {
+                    framePending = false;
+                    apply();
+                }
+            };
+        }
+
+        framePending = true;
+        Choreographer.getInstance().postFrameCallback((Choreographer.FrameCallback) frameCallback);
+    }
+
+    @TargetApi(Build.VERSION_CODES.JELLY_BEAN)
+    private void cancelFrame() {
+        if (framePending && Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN) {
+            Choreographer.getInstance().removeFrameCallback((Choreographer.FrameCallback) frameCallback);
+        }
+
+        framePending = false;
+    }
+}
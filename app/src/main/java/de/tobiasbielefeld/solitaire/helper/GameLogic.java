@@ -42,6 +42,8 @@ public class GameLogic {
     private boolean won;                                                                            //shows if the player has won, needed to know if the timer can stop, or to deal new cards on game start
     private GameManager gm;
     private boolean movedFirstCard = false;
+    private int numberDeadEnds;                                                                     //number of games which reached a dead end, shown in the high score activity
+    private boolean deadEndRecorded = false;                                                        //the current game was already counted as a dead end
 
     public GameLogic(GameManager gm) {
         this.gm = gm;
@@ -67,6 +69,8 @@ public class GameLogic {
         putBoolean(GAME_WON, won);
         putBoolean(GAME_MOVED_FIRST_CARD, movedFirstCard);
         putInt(GAME_NUMBER_OF_WON_GAMES, numberWonGames);
+        putInt(GAME_NUMBER_OF_DEAD_ENDS, numberDeadEnds);
+        putBoolean(GAME_DEAD_END_RECORDED, deadEndRecorded);
         // Timer will be saved in onPause()
         for (Stack stack : stacks)
             stack.save();
@@ -87,12 +91,18 @@ public class GameLogic {
 
         boolean first_run = getBoolean(GAME_FIRST_RUN, DEFAULT_FIRST_RUN);
         numberWonGames = getInt(GAME_NUMBER_OF_WON_GAMES, 0);
+        numberDeadEnds = getInt(GAME_NUMBER_OF_DEAD_ENDS, 0);
+        deadEndRecorded = getBoolean(GAME_DEAD_END_RECORDED, false);
         won = getBoolean(GAME_WON, DEFAULT_WON);
         movedFirstCard = getBoolean(GAME_MOVED_FIRST_CARD, DEFAULT_MOVED_FIRST_CARD);
         //update and reset
         Card.updateCardDrawableChoice();
         Card.updateCardBackgroundChoice();
         animate.reset();
+        postMovePipeline.reset();
+        autoCompleteSolver.cancel();
+        deadEndDetector.reset();
+        hint.reset();
         autoComplete.reset();
         currentGame.load();
         currentGame.loadRedealCount(gm);
@@ -124,6 +134,8 @@ public class GameLogic {
 
                 if (!autoComplete.buttonIsShown() && currentGame.autoCompleteStartTest()) {
                     autoComplete.showButton();
+                } else {
+                    autoCompleteSolver.start();
                 }
             } catch (Exception e) {
                 Log.e(gm.getString(R.string.loading_data_failed), e.toString());
@@ -153,10 +165,15 @@ public class GameLogic {
         }
 
         movedFirstCard = false;
+        deadEndRecorded = false;
         won = false;
         currentGame.reset(gm);
 
         animate.reset();
+        postMovePipeline.reset();
+        autoCompleteSolver.cancel();
+        deadEndDetector.reset();
+        hint.reset();
         scores.reset();
         movingCards.reset();
         recordList.reset();
@@ -224,6 +241,8 @@ public class GameLogic {
             for (Stack stack : stacks) {
                 stack.mirrorStack(gm.layoutGame);
             }
+
+            stackIndex.rebuild(gm.layoutGame.getWidth(), gm.layoutGame.getHeight());
         }
 
         //move the re-deal counter too
@@ -268,8 +287,23 @@ public class GameLogic {
         return numberWonGames;
     }
 
+    /**
+     * Counts the current game as a dead end for the statistics, but only once per game.
+     */
+    public void recordDeadEnd() {
+        if (!deadEndRecorded) {
+            numberDeadEnds++;
+            deadEndRecorded = true;
+        }
+    }
+
+    public int getNumberOfDeadEnds() {
+        return numberDeadEnds;
+    }
+
     public void deleteStatistics() {
         numberWonGames = 0;
+        numberDeadEnds = 0;
         putInt(GAME_NUMBER_OF_PLAYED_GAMES, 0);
     }
 
@@ -18,81 +18,362 @@
 
 package de.tobiasbielefeld.solitaire.helper;
 
+import android.os.Handler;
+
 import java.util.ArrayList;
+import java.util.Arrays;
 
 import de.tobiasbielefeld.solitaire.classes.Card;
+import de.tobiasbielefeld.solitaire.classes.CardAndStack;
 import de.tobiasbielefeld.solitaire.classes.Stack;
-import de.tobiasbielefeld.solitaire.handler.HintHandler;
 
 import static de.tobiasbielefeld.solitaire.SharedData.*;
 
 /**
- *  Shows hints. It has a handler which shows up to MAX_NUMBER_OF_HINTS hints.
- *  The hint function tests the tableau and stock if a card can be moved. If so,
- *  the hint animation will be started and the card will be marked, so it won't be shown again
- *  as a hint
+ *  Shows hints. All possible hints of the current board are collected by calling hintTest() of
+ *  the game until it doesn't find a new card, every found card is marked as visited, so it won't
+ *  be returned again. Then the moves get ranked by the points the game gives for them and a bonus
+ *  if they turn a faced down card up. The ranking is saved together with a snapshot of the board,
+ *  so it only needs to be calculated again after the cards have changed.
+ *
+ *  After every move, the post move pipeline starts the ranking with precompute(). It is collected
+ *  in small steps posted to the UI thread, so touches can be handled in between. Every step
+ *  compares the board with the snapshot first and stops if it has changed. If the ranking isn't
+ *  finished when the hint button is pressed, the rest is collected right away. The dead end
+ *  detector only asks if there is at least one move. Pressing the button again on the same board
+ *  continues with the next moves of the ranking.
  */
 
 public class Hint {
 
     public static final int MAX_NUMBER_OF_HINTS = 3;                                                //max number of hints which are shown when pressing the button
-    public HintHandler hintHandler = new HintHandler();                                             //handler to show the hinzd
+    private static final int REVEAL_BONUS = 50;                                                     //extra points for moves which uncover a faced down card
+    private static final int HINTS_PER_STEP = 4;                                                    //calls of hintTest() in one step of the precomputation
+
+    private ArrayList<CardAndStack> ranking = new ArrayList<>();                                    //possible moves of the current board, best one first
+    private ArrayList<Integer> rankingPoints = new ArrayList<>();
+    private boolean[] visited = new boolean[0];                                                     //already found cards while collecting the moves, indexed by card id
+    private int[] rankingBoard = new int[0];                                                        //snapshot of the board the ranking belongs to
+    private int[] currentBoard = new int[0];                                                        //reused array for the snapshot of the current board
+    private int rankingBoardSize = 0;                                                               //used length of rankingBoard, 0 if there is no ranking
+    private int currentBoardSize = 0;                                                               //used length of currentBoard
+    private boolean rankingComplete = false;                                                        //every move of the ranking board was collected
+    private int found = 0;                                                                          //calls of hintTest() for the ranking board
+
+    private int position = 0;                                                                       //next move of the ranking to show
+    private int shown = 0;                                                                          //number of hints shown for the current button press
+    private int animatingCards = 0;                                                                 //cards of the current hint which are still animating
+    private boolean working = false;
+
+    private Handler handler = new Handler();
+    private Runnable showNext = new Runnable() {
+        @Override
+        public void run() {
+            showNextHint();
+        }
+    };
+    private Runnable rankStep = new Runnable() {
+        @Override
+        public void run() {
+            continuePrecompute();
+        }
+    };
+
+    /**
+     * Starts collecting the ranking of the current board, called from the post move pipeline
+     * when the cards have settled. The rest is done in steps, see continuePrecompute().
+     */
+    public void precompute() {
+        handler.removeCallbacks(rankStep);
+        prepareRanking();
+
+        if (!rankingComplete) {
+            handler.post(rankStep);
+        }
+    }
+
+    /**
+     * Collects the next moves of the ranking and posts the next step, as long as the board
+     * hasn't changed. Otherwise the next move starts a new ranking, or the hint button finishes
+     * it.
+     */
+    private void continuePrecompute() {
+        if (rankingComplete || !animate.isIdle() || !rankingIsUpToDate()) {
+            return;
+        }
+
+        continueRanking(HINTS_PER_STEP);
 
-    private int counter = 0;                                                                        //counter to know how many hints were shown
-    private Card[] visited = new Card[MAX_NUMBER_OF_HINTS];                                         //array for already shown cards in hint
+        if (!rankingComplete) {
+            handler.post(rankStep);
+        }
+    }
 
+    /**
+     * Starts showing the best moves of the ranking, one after another. The score is only reduced
+     * if there is at least one move.
+     */
     public void showHint() {
-        hintHandler.sendEmptyMessage(0);
+        if (working) {
+            return;
+        }
+
+        updateRanking();
+
+        if (ranking.isEmpty()) {
+            return;
+        }
+
+        scores.update(-25);
+        working = true;
+        shown = 0;
+        showNextHint();
+    }
+
+    /**
+     * Shows the next move of the ranking, until MAX_NUMBER_OF_HINTS were shown or every move of
+     * the ranking was shown once.
+     */
+    private void showNextHint() {
+        if (!working) {
+            return;
+        }
+
+        if (shown == MAX_NUMBER_OF_HINTS || shown == ranking.size()) {
+            working = false;
+            return;
+        }
+
+        if (position >= ranking.size()) {
+            position = 0;
+        }
+
+        CardAndStack cardAndStack = ranking.get(position);
+        position++;
+        shown++;
+
+        move(cardAndStack.getCard(), cardAndStack.getStack());
     }
 
     /**
-     * moves a card with the hint animation. It will also be marked as visited, so the card
-     * won't be used in the next step. It gets one card and the stack destination, but it
+     * moves a card with the hint animation. It gets one card and the stack destination, but it
      * also adds all cards above.
      */
-    public void move(Card card, Stack destination) {
+    private void move(Card card, Stack destination) {
         Stack origin = card.getStack();
         int index = origin.getIndexOfCard(card);
-        ArrayList<Card> currentCards = new ArrayList<>();
-
-        if (counter == 0)
-            scores.update(-25);
 
-        visited[counter] = card;
+        animatingCards = origin.getSize() - index;
 
         for (int i = index; i < origin.getSize(); i++)
-            currentCards.add(origin.getCard(i));
+            animate.cardHint(origin.getCard(i), i - index, destination);
+    }
 
-        for (int i = 0; i < currentCards.size(); i++)
-            animate.cardHint(currentCards.get(i), i, destination);
+    /**
+     * Called from the hint animation of a card after it faded in at its origin again. After the
+     * last card of the hint, the next hint is started.
+     */
+    public void onCardHintEnd() {
+        if (working && --animatingCards <= 0) {
+            handler.post(showNext);
+        }
     }
 
     /**
-     * tests a card if it has been visited in the current hint
-     * @param test_card The card to test
-     * @return True if the card has been visited, false otherwise
+     * Stops showing hints, used when the card animations are reset.
      */
-    public boolean hasVisited(Card test_card) {
-        for (int i = 0; i < counter; i++)
-            if (test_card == visited[i])
-                return true;
+    public void reset() {
+        working = false;
+        animatingCards = 0;
+        handler.removeCallbacks(showNext);
+        handler.removeCallbacks(rankStep);
+    }
 
-        return false;
+    /**
+     * Collects and ranks all possible moves of the current board, or only the missing ones if a
+     * part of the ranking was already collected.
+     */
+    private void updateRanking() {
+        prepareRanking();
+        continueRanking(cards.length);
     }
 
-    public boolean isWorking() {
-        return counter != 0;
+    /**
+     * Starts a new, empty ranking for the current board, if the board has changed since the last
+     * time. The current snapshot is kept for the next comparison.
+     */
+    private void prepareRanking() {
+        if (rankingIsUpToDate()) {
+            return;
+        }
+
+        ranking.clear();
+        rankingPoints.clear();
+        clearVisited();
+        position = 0;
+        found = 0;
+        rankingComplete = false;
+
+        int[] swap = rankingBoard;
+        rankingBoard = currentBoard;
+        currentBoard = swap;
+        rankingBoardSize = currentBoardSize;
     }
 
-    public void stop() {
-        counter = MAX_NUMBER_OF_HINTS;
+    /**
+     * Collects the next moves of the ranking. The visited cards are kept until the ranking is
+     * complete, so hintTest() continues with the moves which weren't found yet.
+     *
+     * @param steps The maximum number of calls of hintTest()
+     */
+    private void continueRanking(int steps) {
+        for (int i = 0; i < steps && !rankingComplete; i++) {
+            CardAndStack cardAndStack = found < cards.length ? currentGame.hintTest() : null;
+            found++;
+
+            if (cardAndStack == null || visited[cardAndStack.getCard().getId()]) {
+                rankingComplete = true;
+                clearVisited();
+                break;
+            }
+
+            visited[cardAndStack.getCard().getId()] = true;
+            insertSorted(cardAndStack, getPoints(cardAndStack));
+        }
     }
 
-    public int getCounter() {
-        return counter;
+    /**
+     * Takes a snapshot of the current board (the size of every stack, then the id and direction
+     * of every card on it) and compares it with the one of the ranking. The snapshot stays in
+     * currentBoard, so prepareRanking() can keep it.
+     *
+     * @return True if the ranking belongs to the current board
+     */
+    private boolean rankingIsUpToDate() {
+        if (currentBoard.length < stacks.length + cards.length) {
+            currentBoard = new int[stacks.length + cards.length];
+        }
+
+        int size = 0;
+
+        for (Stack stack : stacks) {
+            currentBoard[size++] = stack.getSize();
+
+            for (int i = 0; i < stack.getSize(); i++) {
+                Card card = stack.getCard(i);
+                currentBoard[size++] = card.getId() * 2 + (card.isUp() ? 1 : 0);
+            }
+        }
+
+        boolean upToDate = size == rankingBoardSize;
+
+        for (int i = 0; upToDate && i < size; i++) {
+            upToDate = currentBoard[i] == rankingBoard[i];
+        }
+
+        currentBoardSize = size;
+        return upToDate;
+    }
+
+    private void clearVisited() {
+        if (visited.length != cards.length) {
+            visited = new boolean[cards.length];
+        } else {
+            Arrays.fill(visited, false);
+        }
+    }
+
+    /**
+     * Looks one move ahead: The points the game would give for the move, and a bonus if the card
+     * below the moved cards is faced down, because it would be turned up after the move.
+     *
+     * @param cardAndStack The move to rate
+     * @return The points of the move, higher is better
+     */
+    private int getPoints(CardAndStack cardAndStack) {
+        Card card = cardAndStack.getCard();
+        Stack origin = card.getStack();
+        int index = origin.getIndexOfCard(card);
+        int size = origin.getSize() - index;
+
+        ArrayList<Card> movedCards = new ArrayList<>(size);
+        int[] originIDs = new int[size];
+        int[] destinationIDs = new int[size];
+
+        for (int i = 0; i < size; i++) {
+            movedCards.add(origin.getCard(index + i));
+            originIDs[i] = origin.getId();
+            destinationIDs[i] = cardAndStack.getStackId();
+        }
+
+        int points = currentGame.addPointsToScore(movedCards, originIDs, destinationIDs);
+
+        if (index > 0 && !origin.getCard(index - 1).isUp()) {
+            points += REVEAL_BONUS;
+        }
+
+        return points;
     }
 
-    public void setCounter(int value) {
-        counter = value;
+    /**
+     * Inserts a move in the ranking. Moves with the same points keep the order of the game's
+     * hint test.
+     */
+    private void insertSorted(CardAndStack cardAndStack, int points) {
+        int i = ranking.size();
+
+        while (i > 0 && rankingPoints.get(i - 1) < points) {
+            i--;
+        }
+
+        ranking.add(i, cardAndStack);
+        rankingPoints.add(i, points);
+    }
+
+    /**
+     * Tests if the current board has at least one move. If the ranking of the current board
+     * doesn't contain a move yet, only the first one is collected instead of the whole ranking.
+     *
+     * @return True if there is at least one move
+     */
+    public boolean hasMoves() {
+        prepareRanking();
+
+        if (ranking.isEmpty()) {
+            continueRanking(1);
+        }
+
+        return !ranking.isEmpty();
+    }
+
+    /**
+     * @return A hash of the cards on every stack and their directions
+     */
+    public long getBoardHash() {
+        long hash = 17;
+
+        for (Stack stack : stacks) {
+            hash = hash * 31 + stack.getSize();
+
+            for (int i = 0; i < stack.getSize(); i++) {
+                Card card = stack.getCard(i);
+                hash = hash * 31 + card.getId() * 2 + (card.isUp() ? 1 : 0);
+            }
+        }
+
+        return hash;
+    }
+
+    /**
+     * tests a card if it has been visited while collecting the moves
+     * @param test_card The card to test
+     * @return True if the card has been visited, false otherwise
+     */
+    public boolean hasVisited(Card test_card) {
+        return visited[test_card.getId()];
+    }
+
+    public boolean isWorking() {
+        return working;
     }
-}
\ No newline at end of file
+}
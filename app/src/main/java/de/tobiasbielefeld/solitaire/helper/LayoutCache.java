@@ -0,0 +1,143 @@
+/*
+ * Copyright (C) 2016  Tobias Bielefeld
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * If you want to contact me, send me an e-mail at tobias.bielefeld@gmail.com
+ */
+
+package de.tobiasbielefeld.solitaire.helper;
+
+import android.graphics.Bitmap;
+import android.graphics.drawable.BitmapDrawable;
+import android.graphics.drawable.Drawable;
+import android.widget.RelativeLayout;
+
+import java.util.HashMap;
+
+import de.tobiasbielefeld.solitaire.classes.Card;
+import de.tobiasbielefeld.solitaire.classes.Stack;
+
+import static de.tobiasbielefeld.solitaire.SharedData.*;
+
+/**
+ * Caches the computed layout of the stacks, so re-entering a game or rotating the screen doesn't
+ * need to call setStacks(), the left handed mirroring and the direction borders again. The key
+ * contains everything the layout depends on: the game, the layout dimensions, the orientation,
+ * the left handed mode and the menu bar position. The cache only lives as long as the app process.
+ *
+ * Only the layout is saved here, so setStacks() of a game shouldn't change anything else (like
+ * game data or card colors), otherwise it would be missing after loading from the cache.
+ */
+
+public class LayoutCache {
+
+    private static HashMap<String, Entry> entries = new HashMap<>();
+
+    /**
+     * Applies a cached layout for the current game, if there is one.
+     *
+     * @param layoutGame The layout, where the cards are located in
+     * @param isLandscape Shows if the phone is currently in landscape mode
+     * @return True if the layout was loaded from the cache, false if it needs to be computed
+     */
+    public static boolean load(RelativeLayout layoutGame, boolean isLandscape) {
+        Entry entry = entries.get(getKey(layoutGame, isLandscape));
+
+        if (entry == null || entry.stackX.length != stacks.length) {
+            return false;
+        }
+
+        Card.width = entry.cardWidth;
+        Card.height = entry.cardHeight;
+        currentGame.applyCardDimensions();
+        currentGame.directionBorders = entry.directionBorders;
+
+        for (int i = 0; i < stacks.length; i++) {
+            Stack stack = stacks[i];
+            stack.setX(entry.stackX[i]);
+            stack.setY(entry.stackY[i]);
+            stack.setSpacingDirection(entry.spacingDirections[i]);
+            stack.setSpacingMaxValue(entry.spacingMax[i]);
+
+            if (entry.backgrounds[i] != null) {
+                stack.view.setImageBitmap(entry.backgrounds[i]);
+            }
+
+            if (entry.arrowDirections[i] != null) {
+                currentGame.setArrow(stack, entry.arrowDirections[i]);
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Saves the current layout of the stacks. Called after the layout was computed completely.
+     *
+     * @param layoutGame The layout, where the cards are located in
+     * @param isLandscape Shows if the phone is currently in landscape mode
+     */
+    public static void save(RelativeLayout layoutGame, boolean isLandscape) {
+        Entry entry = new Entry(stacks.length);
+
+        entry.cardWidth = Card.width;
+        entry.cardHeight = Card.height;
+        entry.directionBorders = currentGame.directionBorders;
+
+        for (int i = 0; i < stacks.length; i++) {
+            Stack stack = stacks[i];
+            entry.stackX[i] = stack.getX();
+            entry.stackY[i] = stack.getY();
+            entry.spacingDirections[i] = stack.getSpacingDirection();
+            entry.spacingMax[i] = stack.getSpacingMax();
+            entry.arrowDirections[i] = stack.getArrowDirection();
+
+            Drawable drawable = stack.view.getDrawable();
+
+            if (drawable instanceof BitmapDrawable) {
+                entry.backgrounds[i] = ((BitmapDrawable) drawable).getBitmap();
+            }
+        }
+
+        entries.put(getKey(layoutGame, isLandscape), entry);
+    }
+
+    private static String getKey(RelativeLayout layoutGame, boolean isLandscape) {
+        String menuBarPosition = isLandscape
+                ? getSharedString(PREF_KEY_MENU_BAR_POS_LANDSCAPE, DEFAULT_MENU_BAR_POSITION_LANDSCAPE)
+                : getSharedString(PREF_KEY_MENU_BAR_POS_PORTRAIT, DEFAULT_MENU_BAR_POSITION_PORTRAIT);
+
+        return lg.getSharedPrefName() + ";" + layoutGame.getWidth() + ";" + layoutGame.getHeight() + ";"
+                + isLandscape + ";" + settings.leftHandedMode + ";"
+                + menuBarPosition;
+    }
+
+    private static class Entry {
+        int cardWidth, cardHeight;
+        int[] directionBorders;
+        float[] stackX, stackY, spacingMax;
+        Stack.SpacingDirection[] spacingDirections;
+        Stack.ArrowDirection[] arrowDirections;
+        Bitmap[] backgrounds;
+
+        Entry(int size) {
+            stackX = new float[size];
+            stackY = new float[size];
+            spacingMax = new float[size];
+            spacingDirections = new Stack.SpacingDirection[size];
+            arrowDirections = new Stack.ArrowDirection[size];
+            backgrounds = new Bitmap[size];
+        }
+    }
+}
@@ -37,9 +37,11 @@ public class MovingCards {
     private ArrayList<Card> currentCards = new ArrayList<>();                                       //array list containing the current cards to move
     private float offsetX, offsetY;
     private boolean moveStarted;
+    private long legalDestinations;                                                                 //bit mask of the stacks the current cards can be placed on
 
     public void reset() {
         currentCards.clear();
+        legalDestinations = 0;
     }
 
     /**
@@ -63,17 +65,46 @@ public class MovingCards {
     }
 
     /**
-     * Moves the cards to the new location
+     * Tests once on which stacks the current cards could be placed, so dropping them after a drag
+     * doesn't need to test the rules again. The game doesn't change while the cards are dragged,
+     * so the result stays valid until they are dropped.
+     */
+    public void findLegalDestinations() {
+        Card card = currentCards.get(0);
+        legalDestinations = 0;
+
+        for (int i = 0; i < stacks.length; i++) {
+            if (card.getStack() != stacks[i] && card.test(stacks[i])) {
+                legalDestinations |= 1L << i;
+            }
+        }
+    }
+
+    /**
+     * @return The stacks where the current cards can be placed on as a bit mask, calculated in
+     * findLegalDestinations()
+     */
+    public long getLegalDestinations() {
+        return legalDestinations;
+    }
+
+    /**
+     * Moves the cards to the new location. This is called on every move event of a drag, so it
+     * only sets the coordinates. The cards were already lifted above the others when the movement
+     * started (see CardHighlight.set()).
      *
      * @param X X-coordinate of the destination
      * @param Y Y-coordinate of the destination
      */
     public void move(float X, float Y) {
-        for (Card card : currentCards) {
-            card.setLocationWithoutMovement(X - offsetX, (Y - offsetY)
-                    + currentCards.indexOf(card) * Stack.defaultSpacing / 2);
-        }
+        float cardX = X - offsetX, cardY = Y - offsetY;
+        float spacing = Stack.defaultSpacing / 2;
 
+        for (int i = 0; i < currentCards.size(); i++) {
+            Card card = currentCards.get(i);
+            card.setX(cardX);
+            card.setY(cardY + i * spacing);
+        }
     }
 
     public boolean moveStarted(float X, float Y){
@@ -106,16 +137,14 @@ public class MovingCards {
 
         Stack origin = currentCards.get(0).getStack();
 
+        currentGame.onPlayerMovement(currentCards.get(0), destination);
         moveToStack(currentCards, destination);
 
         if (origin.getSize() > 0 && origin.getId() <= currentGame.getLastTableauId() && !origin.getTopCard().isUp())
             origin.getTopCard().flipWithAnim();
 
         currentCards.clear();
-
-        if (!autoComplete.buttonIsShown() && currentGame.autoCompleteStartTest()) {
-            autoComplete.showButton();
-        }
+        legalDestinations = 0;
     }
 
     /**
@@ -126,6 +155,7 @@ public class MovingCards {
             card.returnToOldLocation();
 
         currentCards.clear();
+        legalDestinations = 0;
     }
 
     /**
@@ -0,0 +1,403 @@
+/*
+ * Copyright (C) 2016  Tobias Bielefeld
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * If you want to contact me, send me an e-mail at tobias.bielefeld@gmail.com
+ */
+
+package de.tobiasbielefeld.solitaire.helper;
+
+import android.annotation.TargetApi;
+import android.graphics.Color;
+import android.os.Build;
+import android.os.SystemClock;
+import android.util.Log;
+import android.view.Choreographer;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.RelativeLayout;
+import android.widget.TextView;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.Locale;
+
+import de.tobiasbielefeld.solitaire.R;
+import de.tobiasbielefeld.solitaire.ui.GameManager;
+
+import static de.tobiasbielefeld.solitaire.SharedData.*;
+
+/**
+ * Debug overlay for the game screen. It measures the frame times with the Choreographer (only
+ * available from Android 4.1 on), the latency from touching a card to the end of its movement,
+ * the number of running card animations and the duration of the last save. The values are shown
+ * in a small text view on the left side of the game, a long press on it writes the recorded session
+ * trace to a file in the app directory.
+ *
+ * Every method returns immediately if the overlay is disabled, so the hooks in the game code
+ * don't cost anything in that case.
+ */
+
+public class PerformanceMonitor {
+
+    private final static long[] HISTOGRAM_LIMITS = {8, 17, 34, 50, 100};                           //upper limits of the histogram buckets in milliseconds, the last bucket contains everything above
+    private final static int ROLLING_FRAMES = 300;                                                  //the histogram only contains the last x frames, about five seconds
+    private final static int MAX_TRACE_ENTRIES = 4096;                                              //size of the ring buffer for the session trace
+    private final static long OVERLAY_UPDATE_TIME = 500;                                            //update the overlay text every x milliseconds
+
+    private final static int TRACE_FRAME = 0, TRACE_MOVE = 1, TRACE_SAVE = 2;
+
+    private boolean enabled = false;
+    private GameManager gm;
+    private TextView overlay;
+    private Object frameCallback;                                                                   //Choreographer.FrameCallback, saved as object to stay compatible with old versions
+
+    private long lastFrameTime = 0;
+    private long lastOverlayUpdate = 0;
+    private int[] histogram = new int[HISTOGRAM_LIMITS.length + 1];                                 //frames of the rolling window in every bucket
+    private int[] frameBuckets = new int[ROLLING_FRAMES];                                           //ring buffer with the bucket of every frame in the window
+    private int frameCount = 0;                                                                     //all frames since the reset, the window contains the last ROLLING_FRAMES of them
+    private int framesJanky = 0;                                                                    //janky frames of the rolling window
+
+    private long touchTime = 0, moveTime = 0;                                                       //timestamps of the current touch and moveToStack() call
+    private long lastTouchToMove = 0, lastMoveToAnimationEnd = 0;
+    private long lastSaveDuration = 0;
+
+    private int[] traceTypes = new int[MAX_TRACE_ENTRIES];
+    private long[] traceTimes = new long[MAX_TRACE_ENTRIES];
+    private long[] traceValues = new long[MAX_TRACE_ENTRIES];                                       //frame time, touch to move latency or save duration
+    private long[] traceSecondValues = new long[MAX_TRACE_ENTRIES];                                 //move to animation end latency, only used for movements
+    private int traceCount = 0;
+
+    public PerformanceMonitor(GameManager gm) {
+        this.gm = gm;
+    }
+
+    /**
+     * Enables or disables the overlay according to the preference. Called in onResume() of the
+     * game manager, so changes in the settings are applied when returning to the game.
+     *
+     * @param value True to enable the overlay
+     */
+    public void setEnabled(boolean value) {
+        if (value == enabled) {
+            return;
+        }
+
+        enabled = value;
+
+        if (enabled) {
+            reset();
+            showOverlay();
+            startFrameCallback();
+        } else {
+            stopFrameCallback();
+            hideOverlay();
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Stops measuring the frames, called in onPause() of the game manager.
+     */
+    public void pause() {
+        if (enabled) {
+            stopFrameCallback();
+        }
+    }
+
+    /**
+     * Continues measuring the frames after the game manager was paused.
+     */
+    public void resume() {
+        if (enabled) {
+            lastFrameTime = 0;
+            startFrameCallback();
+        }
+    }
+
+    /**
+     * Saves the time of a touch event on a card or stack.
+     */
+    public void onTouch() {
+        if (!enabled) {
+            return;
+        }
+
+        touchTime = SystemClock.uptimeMillis();
+    }
+
+    /**
+     * Saves the time of a moveToStack() call and the latency since the last touch event.
+     */
+    public void onMoveToStack() {
+        if (!enabled) {
+            return;
+        }
+
+        moveTime = SystemClock.uptimeMillis();
+
+        if (touchTime != 0) {
+            lastTouchToMove = moveTime - touchTime;
+            touchTime = 0;
+        }
+    }
+
+    /**
+     * Called at the end of every card animation. If it was the last running one, the latency from
+     * the moveToStack() call to the end of the animation will be recorded.
+     */
+    public void onCardAnimationEnd() {
+        if (!enabled || moveTime == 0 || !animate.isIdle()) {
+            return;
+        }
+
+        long now = SystemClock.uptimeMillis();
+        lastMoveToAnimationEnd = now - moveTime;
+        addTrace(TRACE_MOVE, now, lastTouchToMove, lastMoveToAnimationEnd);
+        moveTime = 0;
+    }
+
+    /**
+     * Records how long the last save of the game took.
+     *
+     * @param duration The duration in milliseconds
+     */
+    public void onSave(long duration) {
+        if (!enabled) {
+            return;
+        }
+
+        lastSaveDuration = duration;
+        addTrace(TRACE_SAVE, SystemClock.uptimeMillis(), duration, 0);
+    }
+
+    /**
+     * Writes the recorded trace of this session to a text file. Every line contains the type of
+     * the entry, the timestamp and the measured values in milliseconds.
+     */
+    public void dumpTrace() {
+        File directory = gm.getExternalFilesDir(null);
+
+        if (directory == null) {
+            directory = gm.getFilesDir();
+        }
+
+        File file = new File(directory, "trace_" + System.currentTimeMillis() + ".txt");
+        FileWriter writer = null;
+
+        try {
+            writer = new FileWriter(file);
+            writer.write("type;uptime;value1;value2\n");
+
+            int start = traceCount > MAX_TRACE_ENTRIES ? traceCount - MAX_TRACE_ENTRIES : 0;
+
+            for (int i = start; i < traceCount; i++) {
+                int index = i % MAX_TRACE_ENTRIES;
+
+                switch (traceTypes[index]) {
+                    case TRACE_FRAME:
+                        writer.write(String.format(Locale.US, "frame;%d;%d;\n", traceTimes[index], traceValues[index]));
+                        break;
+                    case TRACE_MOVE:
+                        writer.write(String.format(Locale.US, "move;%d;%d;%d\n", traceTimes[index],
+                                traceValues[index], traceSecondValues[index]));
+                        break;
+                    case TRACE_SAVE:
+                        writer.write(String.format(Locale.US, "save;%d;%d;\n", traceTimes[index], traceValues[index]));
+                        break;
+                }
+            }
+
+            gm.showToast(gm.getString(R.string.debug_overlay_trace_saved) + " " + file.getAbsolutePath());
+        } catch (IOException e) {
+            Log.e("PerformanceMonitor", e.toString());
+        } finally {
+            if (writer != null) {
+                try {
+                    writer.close();
+                } catch (IOException e) {
+                    Log.e("PerformanceMonitor", e.toString());
+                }
+            }
+        }
+    }
+
+    private void reset() {
+        lastFrameTime = 0;
+        lastOverlayUpdate = 0;
+        frameCount = 0;
+        framesJanky = 0;
+        traceCount = 0;
+        touchTime = 0;
+        moveTime = 0;
+
+        for (int i = 0; i < histogram.length; i++) {
+            histogram[i] = 0;
+        }
+    }
+
+    /**
+     * Adds the time between two frames to the histogram and updates the overlay from time to time.
+     * Once the window is full, the oldest frame is removed from the histogram again.
+     *
+     * @param frameTimeNanos The time of the current frame, given from the Choreographer
+     */
+    private void onFrame(long frameTimeNanos) {
+        long frameTime = frameTimeNanos / 1000000;
+
+        if (lastFrameTime != 0) {
+            long duration = frameTime - lastFrameTime;
+            int bucket = 0;
+
+            while (bucket < HISTOGRAM_LIMITS.length && duration >= HISTOGRAM_LIMITS[bucket]) {
+                bucket++;
+            }
+
+            int index = frameCount % ROLLING_FRAMES;
+
+            if (frameCount >= ROLLING_FRAMES) {
+                removeFromHistogram(frameBuckets[index]);
+            }
+
+            frameBuckets[index] = bucket;
+            frameCount++;
+            histogram[bucket]++;
+
+            if (isJanky(bucket)) {
+                framesJanky++;
+            }
+
+            addTrace(TRACE_FRAME, frameTime, duration, 0);
+        }
+
+        lastFrameTime = frameTime;
+
+        if (frameTime - lastOverlayUpdate > OVERLAY_UPDATE_TIME) {
+            lastOverlayUpdate = frameTime;
+            updateOverlay();
+        }
+    }
+
+    private void removeFromHistogram(int bucket) {
+        histogram[bucket]--;
+
+        if (isJanky(bucket)) {
+            framesJanky--;
+        }
+    }
+
+    /**
+     * A frame is janky if it took longer than one frame at 60 fps, so it lies above the 17ms bucket.
+     */
+    private boolean isJanky(int bucket) {
+        return bucket >= 2;
+    }
+
+    private void addTrace(int type, long time, long value, long secondValue) {
+        int index = traceCount % MAX_TRACE_ENTRIES;
+        traceTypes[index] = type;
+        traceTimes[index] = time;
+        traceValues[index] = value;
+        traceSecondValues[index] = secondValue;
+        traceCount++;
+    }
+
+    private void updateOverlay() {
+        if (overlay == null) {
+            return;
+        }
+
+        StringBuilder text = new StringBuilder();
+        text.append(String.format(Locale.US, "last %d frames  janky: %d\n", min(frameCount, ROLLING_FRAMES), framesJanky));
+
+        for (int i = 0; i < histogram.length; i++) {
+            if (i < HISTOGRAM_LIMITS.length) {
+                text.append(String.format(Locale.US, "<%dms: %d\n", HISTOGRAM_LIMITS[i], histogram[i]));
+            } else {
+                text.append(String.format(Locale.US, ">=%dms: %d\n", HISTOGRAM_LIMITS[i - 1], histogram[i]));
+            }
+        }
+
+        text.append(String.format(Locale.US, "touch->move: %dms\nmove->anim end: %dms\nanimations: %d\nlast save: %dms",
+                lastTouchToMove, lastMoveToAnimationEnd, animate.getAnimationsInFlight(), lastSaveDuration));
+
+        overlay.setText(text);
+    }
+
+    private void showOverlay() {
+        if (overlay == null) {
+            overlay = new TextView(gm);
+            overlay.setTextColor(Color.WHITE);
+            overlay.setBackgroundColor(Color.argb(160, 0, 0, 0));
+            overlay.setTextSize(10);
+            overlay.setPadding(8, 8, 8, 8);
+            overlay.setOnLongClickListener(new View.OnLongClickListener() {
+                @Override
+                public boolean onLongClick(View view) {
+                    dumpTrace();
+                    return true;
+                }
+            });
+
+            RelativeLayout layoutOverlay = (RelativeLayout) gm.findViewById(R.id.mainRelativeLayoutGameOverlay);
+            RelativeLayout.LayoutParams params = new RelativeLayout.LayoutParams(
+                    ViewGroup.LayoutParams.WRAP_CONTENT, ViewGroup.LayoutParams.WRAP_CONTENT);
+            params.addRule(RelativeLayout.CENTER_VERTICAL);
+            layoutOverlay.addView(overlay, params);
+        }
+
+        overlay.setVisibility(View.VISIBLE);
+        updateOverlay();
+    }
+
+    private void hideOverlay() {
+        if (overlay != null) {
+            overlay.setVisibility(View.GONE);
+        }
+    }
+
+    @TargetApi(Build.VERSION_CODES.JELLY_BEAN)
+    private void startFrameCallback() {
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.JELLY_BEAN) {
+            return;
+        }
+
+        if (frameCallback == null) {
+            frameCallback = new Choreographer.FrameCallback() {
+                @Override
+                public void doFrame(long frameTimeNanos) {
+                    onFrame(frameTimeNanos);
+                    Choreographer.getInstance().postFrameCallback(this);
+                }
+            };
+        }
+
+        Choreographer.getInstance().removeFrameCallback((Choreographer.FrameCallback) frameCallback);
+        Choreographer.getInstance().postFrameCallback((Choreographer.FrameCallback) frameCallback);
+    }
+
+    @TargetApi(Build.VERSION_CODES.JELLY_BEAN)
+    private void stopFrameCallback() {
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.JELLY_BEAN || frameCallback == null) {
+            return;
+        }
+
+        Choreographer.getInstance().removeFrameCallback((Choreographer.FrameCallback) frameCallback);
+    }
+}
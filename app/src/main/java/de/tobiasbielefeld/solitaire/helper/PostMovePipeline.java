@@ -0,0 +1,172 @@
+/*
+ * Copyright (C) 2016  Tobias Bielefeld
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * If you want to contact me, send me an e-mail at tobias.bielefeld@gmail.com
+ */
+
+package de.tobiasbielefeld.solitaire.helper;
+
+import de.tobiasbielefeld.solitaire.classes.Card;
+import de.tobiasbielefeld.solitaire.classes.CardAndStack;
+import de.tobiasbielefeld.solitaire.classes.Stack;
+
+import static de.tobiasbielefeld.solitaire.SharedData.*;
+
+/**
+ * Runs the tests after a card movement: First testAfterMove() of the current game, then the win
+ * test and the test if the auto complete button can be shown (or the auto complete is started
+ * directly with the instant finish setting). If the test of the game doesn't pass, the auto
+ * complete solver checks in the background if the game can already be finished. At last the
+ * dead end detector tests the new board and the hints for it are precomputed in small steps.
+ * Everything waits until the card animations are over, but instead of polling with handlers this
+ * gets called back from the Animate class when the last animation has finished.
+ *
+ * testAfterMove() can move cards on its own (like the full card families in Spider), in that case
+ * the other tests wait for these animations too. The same goes for the auto play, which moves safe
+ * cards to the foundations after testAfterMove().
+ */
+
+public class PostMovePipeline {
+
+    private boolean testAfterMovePending = false;
+    private boolean testIfWonPending = false;
+    private boolean autoPlayPending = false;
+
+    private Runnable run = new Runnable() {
+        @Override
+        public void run() {
+            runPendingTests();
+        }
+    };
+
+    /**
+     * Schedules all tests, called after every movement of the player.
+     */
+    public void afterMove() {
+        testAfterMovePending = true;
+        autoPlayPending = true;
+        testIfWonPending = true;
+        animate.awaitIdle(run);
+    }
+
+    /**
+     * Schedules only the win test, for example after a game moved cards in testAfterMove().
+     */
+    public void testIfWon() {
+        testIfWonPending = true;
+        animate.awaitIdle(run);
+    }
+
+    /**
+     * Removes the pending tests, used when a new game starts.
+     */
+    public void reset() {
+        testAfterMovePending = false;
+        autoPlayPending = false;
+        testIfWonPending = false;
+    }
+
+    private void runPendingTests() {
+        if (testAfterMovePending) {
+            testAfterMovePending = false;
+            currentGame.testAfterMove();
+
+            if (!animate.isIdle()) {
+                animate.awaitIdle(run);
+                return;
+            }
+        }
+
+        if (autoPlayPending) {
+            autoPlayPending = false;
+
+            //the game gets another testAfterMove() after the cards of the auto play
+            if (runAutoPlay()) {
+                testAfterMovePending = true;
+                autoPlayPending = true;
+                animate.awaitIdle(run);
+                return;
+            }
+        }
+
+        if (testIfWonPending) {
+            testIfWonPending = false;
+            gameLogic.testIfWon();
+        }
+
+        if (gameLogic.hasWon() || autoComplete.isRunning()) {
+            return;
+        }
+
+        if (!autoComplete.buttonIsShown()) {
+            if (currentGame.autoCompleteStartTest()) {
+                if (settings.instantFinish) {
+                    autoComplete.start();
+                    return;
+                }
+
+                autoComplete.showButton();
+            } else {
+                //maybe the game is already won with safe moves, the solver shows the button then
+                autoCompleteSolver.start();
+            }
+        }
+
+        if (!autoComplete.buttonIsShown()) {
+            deadEndDetector.test();
+        }
+
+        //the board is settled now, so the hint button doesn't need to collect the ranking
+        hint.precompute();
+    }
+
+    /**
+     * Moves every card the game marks as safe to the foundations, if the auto play setting is
+     * enabled. The movements are added in front of the last record of the player, so one undo
+     * reverts them together with the player's movement, in the reverse order. Faced down cards
+     * which get uncovered on the tableau are flipped up, like after a movement of the player.
+     *
+     * @return True if at least one card was moved
+     */
+    private boolean runAutoPlay() {
+        if (!settings.autoPlay || gameLogic.hasWon() || autoComplete.isRunning()) {
+            return false;
+        }
+
+        CardAndStack cardAndStack;
+        int movedCards = 0;
+
+        Stack.beginRelayoutBatch();
+
+        while (movedCards < cards.length && (cardAndStack = currentGame.autoPlayTest()) != null) {
+            Card card = cardAndStack.getCard();
+            Stack origin = card.getStack();
+
+            int points = scores.move(card, cardAndStack.getStack());
+            recordList.addInFrontOfLastEntry(card, origin, points);
+            moveToStack(card, cardAndStack.getStack(), OPTION_NO_RECORD);
+            movedCards++;
+
+            if (!origin.isEmpty() && !origin.getTopCard().isUp()
+                    && origin.getId() <= currentGame.getLastTableauId()) {
+                origin.getTopCard().flipWithAnim();
+            }
+        }
+
+        Stack.endRelayoutBatch();
+
+        return movedCards > 0;
+    }
+}
@@ -125,6 +125,32 @@ public class RecordList {
     }
 
 
+    /**
+     * Adds a card to the last entry but as the first card of that entry, so it will be moved at
+     * first, if the record is undone. Used by the auto play: Adding every movement in front
+     * reverts them in the reverse order.
+     *
+     * The score of an entry is normally reverted from the first card only, which would miss the
+     * points of the other movements. So the entry keeps the points of its movements from now on,
+     * and the undo subtracts them exactly.
+     *
+     * @param card Single card to add
+     * @param origin The origin stack of that card
+     * @param points The points the movement has given, the card isn't moved yet
+     */
+    public void addInFrontOfLastEntry(Card card, Stack origin, int points) {
+        ArrayList<Card> cards = new ArrayList<>();
+        ArrayList<Stack> origins = new ArrayList<>();
+
+        cards.add(card);
+        origins.add(origin);
+
+        if (entries.size() == 0)
+            entries.add(new Entry(new ArrayList<Card>(), new ArrayList<Stack>()));
+
+        entries.get(entries.size() - 1).addInFront(cards, origins, points);
+    }
+
     /**
      * Adds more cards to the last entry but as the first cards of that entry, so these cards will be
      * moved at first, if the record is undone
@@ -163,6 +189,27 @@ public class RecordList {
             entries.get(entries.size() - 1).addFlip(card);
     }
 
+    /**
+     * @return The cards of the last entry, in the order an undo moves them back. Used by the tests
+     */
+    ArrayList<Card> getLastEntryCards() {
+        return entries.get(entries.size() - 1).currentCards;
+    }
+
+    /**
+     * @return The origins of the cards of the last entry. Used by the tests
+     */
+    ArrayList<Stack> getLastEntryOrigins() {
+        return entries.get(entries.size() - 1).currentOrigins;
+    }
+
+    /**
+     * Reverts the score of the last entry, without moving its cards. Used by the tests
+     */
+    void undoLastEntryScore() {
+        entries.get(entries.size() - 1).undoScore();
+    }
+
     /**
      * Saves every entry
      */
@@ -197,6 +244,8 @@ public class RecordList {
         private ArrayList<Card> currentCards = new ArrayList<>();
         private ArrayList<Stack> currentOrigins = new ArrayList<>();
         private ArrayList<Card> flipCards = new ArrayList<>();
+        private boolean hasFixedPoints = false;                                                     //the auto play added movements, so the points are saved
+        private int fixedPoints = 0;                                                                //points of every movement in this entry, if hasFixedPoints is set
 
         /**
          * This constructor is used to load saved entries.
@@ -225,6 +274,13 @@ public class RecordList {
                 if (flipCardID > 0)
                     addFlip(cards[flipCardID]);
             }
+
+            ArrayList<Integer> pointsList = getIntList(RECORD_LIST_ENTRY + pos + UNDO_POINTS);
+
+            if (!pointsList.isEmpty()) {
+                hasFixedPoints = true;
+                fixedPoints = pointsList.get(0);
+            }
         }
 
         /**
@@ -288,6 +344,14 @@ public class RecordList {
             }
 
             putIntList(RECORD_LIST_ENTRY + pos + FLIP_CARD, listFlipCards);
+
+            ArrayList<Integer> listPoints = new ArrayList<>();
+
+            if (hasFixedPoints) {
+                listPoints.add(fixedPoints);
+            }
+
+            putIntList(RECORD_LIST_ENTRY + pos + UNDO_POINTS, listPoints);
         }
 
 
@@ -302,17 +366,49 @@ public class RecordList {
                 currentGame.decrementRedealCounter(gm);
             }
 
-            //Use option undo to revert the scores made with this movement
-            moveToStack(currentCards, currentOrigins, OPTION_UNDO);
+            undoScore();
+            moveToStack(currentCards, currentOrigins, OPTION_NO_RECORD);
 
             for (Card card : flipCards) {
                 card.flipWithAnim();
             }
         }
 
+        /**
+         * Reverts the scores made with the movements of this entry. The cards still need to be on
+         * their destinations.
+         */
+        void undoScore() {
+            if (hasFixedPoints) {
+                scores.update(-fixedPoints);
+            } else if (!currentCards.isEmpty()) {
+                scores.undo(currentCards, currentOrigins);
+            }
+        }
+
+        /**
+         * Adds a movement in front of this entry and saves its points. The first time, the points
+         * of the movements already in this entry are saved too, calculated like undoScore() would
+         * do it.
+         *
+         * @param cards The cards to add
+         * @param stacks The origins of the cards to add
+         * @param points The points of the movement
+         */
+        void addInFront(ArrayList<Card> cards, ArrayList<Stack> stacks, int points) {
+            if (!hasFixedPoints) {
+                hasFixedPoints = true;
+                fixedPoints = currentCards.isEmpty() ? 0 : scores.getPoints(currentCards, currentOrigins);
+            }
+
+            fixedPoints += points;
+            addInFront(cards, stacks);
+        }
+
         /**
          * Adds cards in front of this entry. It also checks if the cards added were already in this entry,
-         * if so, replace the old origin with the new one
+         * if so, the card keeps its old place and origin, so an undo moves it back to where it was
+         * before the first movement
          *
          * @param cards The cards to add
          * @param stacks The origins of the cards to add
@@ -321,17 +417,20 @@ public class RecordList {
             ArrayList<Card> tempCards = currentCards;
             ArrayList<Stack> tempOrigins = currentOrigins;
 
-            currentCards = cards;
-            currentOrigins = stacks;
+            currentCards = new ArrayList<>(cards);
+            currentOrigins = new ArrayList<>(stacks);
 
             //Check for each card, if it is already in the entry
             for (int i = 0; i < tempCards.size(); i++) {
-                if (currentCards.contains(tempCards.get(i))) {
-                    currentOrigins.add(currentCards.indexOf(tempCards.get(i)), tempOrigins.get(i));
-                } else {
-                    currentCards.add(tempCards.get(i));
-                    currentOrigins.add(tempOrigins.get(i));
+                int index = currentCards.indexOf(tempCards.get(i));
+
+                if (index != -1) {
+                    currentCards.remove(index);
+                    currentOrigins.remove(index);
                 }
+
+                currentCards.add(tempCards.get(i));
+                currentOrigins.add(tempOrigins.get(i));
             }
         }
 
@@ -50,14 +50,15 @@ public class Scores {
      *
      * @param card The card of the movement
      * @param stack The destination of the movement
+     * @return The points of the movement
      */
-    public void move(Card card, Stack stack) {
+    public int move(Card card, Stack stack) {
         ArrayList<Card> cardArray = new ArrayList<>();
         cardArray.add(card);
         ArrayList<Stack> stackArray = new ArrayList<>();
         stackArray.add(stack);
 
-        move(cardArray, stackArray);
+        return move(cardArray, stackArray);
     }
 
     /**
@@ -66,8 +67,9 @@ public class Scores {
      *
      * @param cards The cards of the movement
      * @param stacks The destinations of the movement
+     * @return The points of the movement
      */
-    public void move(ArrayList<Card> cards, ArrayList<Stack> stacks) {
+    public int move(ArrayList<Card> cards, ArrayList<Stack> stacks) {
         int[] originIDs = new int[cards.size()];
         int[] destinationIDs = new int[stacks.size()];
 
@@ -79,6 +81,7 @@ public class Scores {
         int points = currentGame.addPointsToScore(cards, originIDs, destinationIDs);
 
         update(points);
+        return points;
     }
 
     /**
@@ -105,17 +108,27 @@ public class Scores {
      * @param stacks The destinations of the movement
      */
     public void undo(ArrayList<Card> cards, ArrayList<Stack> stacks) {
+        update(-getPoints(cards, stacks));
+    }
+
+    /**
+     * Calculates the points a movement has given, without changing the score. The cards need to
+     * be on the destination of the movement already.
+     *
+     * @param cards The cards of the movement
+     * @param origins The origins of the movement
+     * @return The points of the movement
+     */
+    public int getPoints(ArrayList<Card> cards, ArrayList<Stack> origins) {
         int[] originIDs = new int[cards.size()];
-        int[] destinationIDs = new int[stacks.size()];
+        int[] destinationIDs = new int[origins.size()];
 
         for (int i = 0; i < originIDs.length; i++) {
-            originIDs[i] = cards.get(i).getStackId();
-            destinationIDs[i] = stacks.get(i).getId();
+            originIDs[i] = origins.get(i).getId();
+            destinationIDs[i] = cards.get(i).getStackId();
         }
 
-        int points = -currentGame.addPointsToScore(cards, destinationIDs, originIDs);
-
-        update(points);
+        return currentGame.addPointsToScore(cards, originIDs, destinationIDs);
     }
 
     /**
@@ -0,0 +1,70 @@
+/*
+ * Copyright (C) 2016  Tobias Bielefeld
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * If you want to contact me, send me an e-mail at tobias.bielefeld@gmail.com
+ */
+
+package de.tobiasbielefeld.solitaire.helper;
+
+import static de.tobiasbielefeld.solitaire.SharedData.*;
+
+/**
+ * Copy of the settings which are read while playing: on every touch, card movement or relayout
+ * of a stack. Reading them from the shared preferences each time means a synchronized map lookup,
+ * so they are read once here and the game uses the plain fields.
+ *
+ * The object never changes, instead a new one is created with SharedData.updateSettings() after
+ * a preference changed (from the settings activity or one of the putShared methods).
+ *
+ * The draw modes and difficulties are the ones of the running game (the "old" values), because
+ * changes in the settings only apply to the next game.
+ */
+
+public final class SettingsSnapshot {
+
+    public final boolean leftHandedMode;
+    public final boolean tapToSelect;
+    public final boolean doubleTap;
+    public final boolean doubleTapAllCards;
+    public final boolean singleTap;
+    public final boolean fourColorMode;
+    public final boolean golfCyclic;
+    public final boolean instantFinish;
+    public final boolean autoPlay;
+    public final int cardTheme;
+    public final int cardBackground;
+    public final String klondikeDraw;
+    public final String canfieldDraw;
+    public final String spiderDifficulty;
+    public final String yukonRules;
+
+    public SettingsSnapshot() {
+        leftHandedMode = getSharedBoolean(PREF_KEY_LEFT_HANDED_MODE, DEFAULT_LEFT_HANDED_MODE);
+        tapToSelect = getSharedBoolean(PREF_KEY_TAP_TO_SELECT_ENABLED, DEFAULT_TAP_TO_SELECT_ENABLED);
+        doubleTap = getSharedBoolean(PREF_KEY_DOUBLE_TAP_ENABLED, DEFAULT_DOUBLE_TAP_ENABLE);
+        doubleTapAllCards = getSharedBoolean(PREF_KEY_DOUBLE_TAP_ALL_CARDS, DEFAULT_DOUBLE_TAP_ALL_CARDS);
+        singleTap = getSharedBoolean(PREF_KEY_SINGLE_TAP_ENABLE, DEFAULT_SINGLE_TAP_ENABLED);
+        fourColorMode = getSharedBoolean(PREF_KEY_4_COLOR_MODE, DEFAULT_4_COLOR_MODE);
+        golfCyclic = getSharedBoolean(PREF_KEY_GOLF_CYCLIC, DEFAULT_GOLF_CYCLIC);
+        instantFinish = getSharedBoolean(PREF_KEY_INSTANT_FINISH, DEFAULT_INSTANT_FINISH);
+        autoPlay = getSharedBoolean(PREF_KEY_AUTO_PLAY, DEFAULT_AUTO_PLAY);
+        cardTheme = getSharedInt(CARD_DRAWABLES, 1);
+        cardBackground = getSharedInt(CARD_BACKGROUND, DEFAULT_CARD_BACKGROUND);
+        klondikeDraw = getSharedString(PREF_KEY_KLONDIKE_DRAW_OLD, DEFAULT_KLONDIKE_DRAW);
+        canfieldDraw = getSharedString(PREF_KEY_CANFIELD_DRAW_OLD, DEFAULT_CANFIELD_DRAW);
+        spiderDifficulty = getSharedString(PREF_KEY_SPIDER_DIFFICULTY_OLD, DEFAULT_SPIDER_DIFFICULTY);
+        yukonRules = getSharedString(PREF_KEY_YUKON_RULES_OLD, DEFAULT_YUKON_RULES);
+    }
+}
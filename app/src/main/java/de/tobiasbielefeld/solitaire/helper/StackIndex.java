@@ -0,0 +1,192 @@
+/*
+ * Copyright (C) 2016  Tobias Bielefeld
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * If you want to contact me, send me an e-mail at tobias.bielefeld@gmail.com
+ */
+
+package de.tobiasbielefeld.solitaire.helper;
+
+import static de.tobiasbielefeld.solitaire.SharedData.*;
+
+/**
+ * Spatial index of the stack rectangles, used to find the stacks below a moving card or a touch
+ * point without testing every stack. The game layout is divided in a uniform grid, every cell
+ * saves the stacks overlapping it as a bit mask (so there can be at most 64 stacks, the biggest
+ * game has 34). The rectangle of a stack goes from the stack to the top card, like in
+ * Stack.getRect(), and is updated every time the cards on a stack get a new layout.
+ *
+ * The queries return the found stacks also as a bit mask, so they don't allocate anything. Use
+ * Long.numberOfTrailingZeros() to iterate over the set bits.
+ */
+
+public class StackIndex {
+
+    private final static int GRID_SIZE = 16;                                                        //number of cells in each direction
+    private final static int MAX_STACKS = 64;
+
+    private long[] cells = new long[GRID_SIZE * GRID_SIZE];
+    private float[] left = new float[MAX_STACKS], top = new float[MAX_STACKS];
+    private float[] right = new float[MAX_STACKS], bottom = new float[MAX_STACKS];
+    private boolean[] inserted = new boolean[MAX_STACKS];
+    private float cellWidth, cellHeight;
+    private boolean initialized = false;
+
+    /**
+     * Sets up the grid for the given layout dimensions and inserts every stack again. Call this
+     * after the stacks got their positions.
+     *
+     * @param width The width of the game layout
+     * @param height The height of the game layout
+     */
+    public void rebuild(int width, int height) {
+        cellWidth = Math.max(1, (float) width / GRID_SIZE);
+        cellHeight = Math.max(1, (float) height / GRID_SIZE);
+        initialized = true;
+
+        for (int i = 0; i < cells.length; i++) {
+            cells[i] = 0;
+        }
+
+        for (int i = 0; i < MAX_STACKS; i++) {
+            inserted[i] = false;
+        }
+
+        for (int i = 0; i < stacks.length; i++) {
+            stacks[i].updateIndex();
+        }
+    }
+
+    /**
+     * Updates the rectangle of a stack. The stack is removed from the cells of the old rectangle
+     * and added to the cells of the new one.
+     *
+     * @param id The id of the stack
+     */
+    public void update(int id, float pLeft, float pTop, float pRight, float pBottom) {
+        if (id >= MAX_STACKS) {
+            return;
+        }
+
+        if (initialized && inserted[id]) {
+            setBits(id, false);
+        }
+
+        left[id] = pLeft;
+        top[id] = pTop;
+        right[id] = pRight;
+        bottom[id] = pBottom;
+
+        if (initialized) {
+            setBits(id, true);
+            inserted[id] = true;
+        }
+    }
+
+    /**
+     * Returns the stacks which intersect with the given rectangle.
+     *
+     * @return The ids of the stacks as a bit mask
+     */
+    public long query(float pLeft, float pTop, float pRight, float pBottom) {
+        if (!initialized) {
+            return 0;
+        }
+
+        long candidates = 0;
+        int startX = getCellX(pLeft), endX = getCellX(pRight);
+        int startY = getCellY(pTop), endY = getCellY(pBottom);
+
+        for (int y = startY; y <= endY; y++) {
+            for (int x = startX; x <= endX; x++) {
+                candidates |= cells[y * GRID_SIZE + x];
+            }
+        }
+
+        long result = 0;
+
+        while (candidates != 0) {
+            int id = Long.numberOfTrailingZeros(candidates);
+            candidates &= candidates - 1;
+
+            if (pLeft < right[id] && left[id] < pRight && pTop < bottom[id] && top[id] < pBottom) {
+                result |= 1L << id;
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Returns the stacks which contain the given point.
+     *
+     * @return The ids of the stacks as a bit mask
+     */
+    public long query(float pX, float pY) {
+        if (!initialized) {
+            return 0;
+        }
+
+        long candidates = cells[getCellY(pY) * GRID_SIZE + getCellX(pX)];
+        long result = 0;
+
+        while (candidates != 0) {
+            int id = Long.numberOfTrailingZeros(candidates);
+            candidates &= candidates - 1;
+
+            if (pX >= left[id] && pX <= right[id] && pY >= top[id] && pY <= bottom[id]) {
+                result |= 1L << id;
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Returns the area of the intersection between the given rectangle and the one of a stack.
+     *
+     * @param id The id of the stack
+     * @return The overlapping area, zero if they don't intersect
+     */
+    public float getOverlapArea(int id, float pLeft, float pTop, float pRight, float pBottom) {
+        float overlapX = Math.max(0, Math.min(pRight, right[id]) - Math.max(pLeft, left[id]));
+        float overlapY = Math.max(0, Math.min(pBottom, bottom[id]) - Math.max(pTop, top[id]));
+
+        return overlapX * overlapY;
+    }
+
+    private void setBits(int id, boolean value) {
+        int startX = getCellX(left[id]), endX = getCellX(right[id]);
+        int startY = getCellY(top[id]), endY = getCellY(bottom[id]);
+        long bit = 1L << id;
+
+        for (int y = startY; y <= endY; y++) {
+            for (int x = startX; x <= endX; x++) {
+                if (value) {
+                    cells[y * GRID_SIZE + x] |= bit;
+                } else {
+                    cells[y * GRID_SIZE + x] &= ~bit;
+                }
+            }
+        }
+    }
+
+    private int getCellX(float pX) {
+        return Math.max(0, Math.min(GRID_SIZE - 1, (int) (pX / cellWidth)));
+    }
+
+    private int getCellY(float pY) {
+        return Math.max(0, Math.min(GRID_SIZE - 1, (int) (pY / cellHeight)));
+    }
+}
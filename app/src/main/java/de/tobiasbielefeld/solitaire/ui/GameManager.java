@@ -20,8 +20,8 @@ package de.tobiasbielefeld.solitaire.ui;
 
 import android.content.Intent;
 import android.content.res.Configuration;
-import android.graphics.RectF;
 import android.os.Bundle;
+import android.os.SystemClock;
 import android.support.v4.app.DialogFragment;
 import android.view.KeyEvent;
 import android.view.MotionEvent;
@@ -41,17 +41,27 @@ import de.tobiasbielefeld.solitaire.classes.Card;
 import de.tobiasbielefeld.solitaire.classes.CardAndStack;
 import de.tobiasbielefeld.solitaire.classes.CustomAppCompatActivity;
 import de.tobiasbielefeld.solitaire.classes.CustomImageView;
+import de.tobiasbielefeld.solitaire.classes.CustomRelativeLayout;
 import de.tobiasbielefeld.solitaire.classes.Stack;
+import de.tobiasbielefeld.solitaire.classes.WinAnimationView;
+import de.tobiasbielefeld.solitaire.dialogs.DeadEndDialog;
 import de.tobiasbielefeld.solitaire.dialogs.RestartDialog;
 import de.tobiasbielefeld.solitaire.handler.LoadGameHandler;
 import de.tobiasbielefeld.solitaire.helper.Animate;
 import de.tobiasbielefeld.solitaire.helper.AutoComplete;
+import de.tobiasbielefeld.solitaire.helper.AutoCompleteSolver;
 import de.tobiasbielefeld.solitaire.helper.CardHighlight;
+import de.tobiasbielefeld.solitaire.helper.DeadEndDetector;
+import de.tobiasbielefeld.solitaire.helper.DragRenderer;
 import de.tobiasbielefeld.solitaire.helper.GameLogic;
 import de.tobiasbielefeld.solitaire.helper.Hint;
+import de.tobiasbielefeld.solitaire.helper.LayoutCache;
 import de.tobiasbielefeld.solitaire.helper.MovingCards;
+import de.tobiasbielefeld.solitaire.helper.PerformanceMonitor;
+import de.tobiasbielefeld.solitaire.helper.PostMovePipeline;
 import de.tobiasbielefeld.solitaire.helper.RecordList;
 import de.tobiasbielefeld.solitaire.helper.Scores;
+import de.tobiasbielefeld.solitaire.helper.StackIndex;
 import de.tobiasbielefeld.solitaire.helper.Timer;
 import de.tobiasbielefeld.solitaire.ui.settings.Settings;
 
@@ -75,7 +85,8 @@ public class GameManager extends CustomAppCompatActivity implements View.OnTouch
     private long firstTapTime;                                                                       //stores the time of first tapping on a card
     private CardAndStack tapped = null;
     private RelativeLayout mainRelativeLayoutBackground;
-    public View highlight;
+    public CustomImageView highlight;
+    public WinAnimationView winAnimationView;
 
     /*
      * Set up everything for the game. First get the ui elements, then initialize my helper stuff.
@@ -90,8 +101,10 @@ public class GameManager extends CustomAppCompatActivity implements View.OnTouch
         setContentView(R.layout.activity_game_manager);
 
         // load stuff
-        highlight = findViewById(R.id.card_highlight);
+        highlight = (CustomImageView) findViewById(R.id.card_highlight);
+        highlight.setZIndex(CustomRelativeLayout.Z_INDEX_HIGHLIGHT);
         layoutGame = (RelativeLayout) findViewById(R.id.mainRelativeLayoutGame);
+        winAnimationView = (WinAnimationView) findViewById(R.id.mainWinAnimationView);
         mainTextViewTime = (TextView) findViewById(R.id.mainTextViewTime);
         mainTextViewScore = (TextView) findViewById(R.id.mainTextViewScore);
         mainTextViewRedeals = (TextView) findViewById(R.id.textViewRedeals);
@@ -109,6 +122,12 @@ public class GameManager extends CustomAppCompatActivity implements View.OnTouch
         autoComplete = new AutoComplete(gm);
         timer = new Timer(gm);
         cardHighlight = new CardHighlight(gm);
+        performanceMonitor = new PerformanceMonitor(gm);
+        stackIndex = new StackIndex();
+        dragRenderer = new DragRenderer();
+        postMovePipeline = new PostMovePipeline();
+        autoCompleteSolver = new AutoCompleteSolver();
+        deadEndDetector = new DeadEndDetector(gm);
         currentGame = lg.loadClass(this, getIntent().getIntExtra(GAME, 1));
         savedGameData = getSharedPreferences(lg.getSharedPrefName(), MODE_PRIVATE);
         Stack.loadBackgrounds();
@@ -139,48 +158,54 @@ public class GameManager extends CustomAppCompatActivity implements View.OnTouch
                 boolean isLandscape = getResources().getConfiguration().orientation
                         == Configuration.ORIENTATION_LANDSCAPE;
 
-                currentGame.setStacks(layoutGame, isLandscape);
+                //a layout for the same game, dimensions and settings was already computed, so use it
+                if (!LayoutCache.load(layoutGame, isLandscape)) {
+                    currentGame.setStacks(layoutGame, isLandscape);
 
-                //if left handed mode is true, mirror all stacks
-                if (getSharedBoolean(PREF_KEY_LEFT_HANDED_MODE, DEFAULT_LEFT_HANDED_MODE)) {
-                    for (Stack stack : stacks)
-                        stack.view.setX(layoutGame.getWidth() - stack.getX() - Card.width);
+                    //if left handed mode is true, mirror all stacks
+                    if (settings.leftHandedMode) {
+                        for (Stack stack : stacks)
+                            stack.view.setX(layoutGame.getWidth() - stack.getX() - Card.width);
 
-                    if (currentGame.hasArrow()) {
-                        for (Stack stack : stacks) {
-                            stack.applyArrow();
+                        if (currentGame.hasArrow()) {
+                            for (Stack stack : stacks) {
+                                stack.applyArrow();
+                            }
                         }
                     }
-                }
-
-                //calculate the spacing for cards on a stack
-                Stack.defaultSpacing = Card.width / 2;
 
-                //setup how the cards on the stacks will be stacked (offset to the previous card)
-                //there are 4 possible directions. By default, the tableau stacks are stacked down
-                //all other stacks don't have a visible offset
-                //use setDirections() in a game to change that
-                if (currentGame.directions == null) {
-                    for (Stack stack : stacks){
-                        if (stack.getId() <= currentGame.getLastTableauId()){
-                            stack.setSpacingDirection(DOWN);
-                        } else {
-                            stack.setSpacingDirection(NONE);
+                    //setup how the cards on the stacks will be stacked (offset to the previous card)
+                    //there are 4 possible directions. By default, the tableau stacks are stacked down
+                    //all other stacks don't have a visible offset
+                    //use setDirections() in a game to change that
+                    if (currentGame.directions == null) {
+                        for (Stack stack : stacks){
+                            if (stack.getId() <= currentGame.getLastTableauId()){
+                                stack.setSpacingDirection(DOWN);
+                            } else {
+                                stack.setSpacingDirection(NONE);
+                            }
                         }
-                    }
-                } else {
-                    for (int i = 0; i < stacks.length; i++) {
-                        if (currentGame.directions.length>i) {
-                            stacks[i].setSpacingDirection(currentGame.directions[i]);
-                        } else {
-                            stacks[i].setSpacingDirection(NONE);
+                    } else {
+                        for (int i = 0; i < stacks.length; i++) {
+                            if (currentGame.directions.length>i) {
+                                stacks[i].setSpacingDirection(currentGame.directions[i]);
+                            } else {
+                                stacks[i].setSpacingDirection(NONE);
+                            }
                         }
                     }
+
+                    //if there are direction borders set (when cards should'nt overlap another stack)  use it.
+                    //else set the layout height/widht as maximum
+                    currentGame.applyDirectionBorders(layoutGame);
+
+                    LayoutCache.save(layoutGame, isLandscape);
                 }
 
-                //if there are direction borders set (when cards should'nt overlap another stack)  use it.
-                //else set the layout height/widht as maximum
-                currentGame.applyDirectionBorders(layoutGame);
+                //calculate the spacing for cards on a stack
+                Stack.defaultSpacing = Card.width / 2;
+                stackIndex.rebuild(layoutGame.getWidth(), layoutGame.getHeight());
 
                 //load the game, to prevent multiple loadings, check the counter first. Load the game
                 //only if its the last attempt to load
@@ -200,8 +225,20 @@ public class GameManager extends CustomAppCompatActivity implements View.OnTouch
         //ony save if the game has been loaded before
         if (hasLoaded) {
             timer.save();
+
+            long saveStartTime = SystemClock.uptimeMillis();
             gameLogic.save();
+            performanceMonitor.onSave(SystemClock.uptimeMillis() - saveStartTime);
         }
+
+        performanceMonitor.pause();
+    }
+
+    @Override
+    public void onDestroy() {
+        super.onDestroy();
+        //the restart dialog can't be shown anymore, so stop the win animation without it
+        winAnimationView.cancel();
     }
 
     @Override
@@ -210,6 +247,8 @@ public class GameManager extends CustomAppCompatActivity implements View.OnTouch
 
         timer.load();
         loadBackgroundColor();
+        performanceMonitor.setEnabled(getSharedBoolean(PREF_KEY_DEBUG_OVERLAY, DEFAULT_DEBUG_OVERLAY));
+        performanceMonitor.resume();
     }
 
     /**
@@ -239,9 +278,13 @@ public class GameManager extends CustomAppCompatActivity implements View.OnTouch
         if (stopConditions())
             return true;
 
+        if (event.getAction() == MotionEvent.ACTION_DOWN || event.getAction() == MotionEvent.ACTION_UP)
+            performanceMonitor.onTouch();
+
         //also don't do anything with a second touch point
         if (event.getPointerId(0) != 0) {
             if (movingCards.hasCards()) {
+                dragRenderer.reset();
                 movingCards.returnToPos();
                 resetTappedCard();
             }
@@ -255,7 +298,7 @@ public class GameManager extends CustomAppCompatActivity implements View.OnTouch
         if (event.getAction() == MotionEvent.ACTION_DOWN) {
             return motionActionDown(v, event, X, Y);
         } else if (event.getAction() == MotionEvent.ACTION_MOVE && movingCards.hasCards()) {
-           return motionActionMove(X, Y);
+           return motionActionMove(v, event, X, Y);
         } else if (event.getAction() == MotionEvent.ACTION_UP && movingCards.hasCards()) {
             return motionActionUp(X, Y);
         }
@@ -291,7 +334,7 @@ public class GameManager extends CustomAppCompatActivity implements View.OnTouch
             return resetTappedCard();
         }
 
-        if (v.belongsToStack() && getSharedBoolean(PREF_KEY_TAP_TO_SELECT_ENABLED,DEFAULT_TAP_TO_SELECT_ENABLED) ) {
+        if (v.belongsToStack() && settings.tapToSelect) {
             if (tapped!=null && tapped.getStack()!= stacks[v.getId()]
                     && tapped.getCard().test(stacks[v.getId()])
                     && currentGame.addCardToMovementTest(tapped.getCard())) {
@@ -305,13 +348,13 @@ public class GameManager extends CustomAppCompatActivity implements View.OnTouch
         } else if (v.belongsToCard() && cards[v.getId()].isUp()) {
             if (tapped!=null) {
                 //double tap
-                if (getSharedBoolean(PREF_KEY_DOUBLE_TAP_ENABLED, DEFAULT_DOUBLE_TAP_ENABLE)
+                if (settings.doubleTap
                         && tapped.getStack() == cards[v.getId()].getStack()
                         && System.currentTimeMillis() - firstTapTime < DOUBLE_TAP_SPEED) {
 
                     CardAndStack cardAndStack = null;
 
-                    if (getSharedBoolean(PREF_KEY_DOUBLE_TAP_ALL_CARDS, DEFAULT_DOUBLE_TAP_ALL_CARDS) && tapped.getStackId() <= currentGame.getLastTableauId()) {
+                    if (settings.doubleTapAllCards && tapped.getStackId() <= currentGame.getLastTableauId()) {
                         cardAndStack = currentGame.doubleTap(tapped.getStack());
                     } else if (currentGame.addCardToMovementTest(tapped.getCard())) {
                         cardAndStack = currentGame.doubleTap(tapped.getCard());
@@ -325,7 +368,7 @@ public class GameManager extends CustomAppCompatActivity implements View.OnTouch
                     }
                 }
                 //tap to select
-                else if (getSharedBoolean(PREF_KEY_TAP_TO_SELECT_ENABLED,DEFAULT_TAP_TO_SELECT_ENABLED)
+                else if (settings.tapToSelect
                         && tapped.getStack() != cards[v.getId()].getStack()
                         && tapped.getCard().test(cards[v.getId()].getStack())
                         && currentGame.addCardToMovementTest(tapped.getCard())) {
@@ -344,6 +387,7 @@ public class GameManager extends CustomAppCompatActivity implements View.OnTouch
 
                 if (currentGame.addCardToMovementTest(tapped.getCard())) {
                     movingCards.add(tapped.getCard(), event.getX(), event.getY());
+                    movingCards.findLegalDestinations();
                     cardHighlight.set(tapped.getCard());
                 }
             }
@@ -353,16 +397,17 @@ public class GameManager extends CustomAppCompatActivity implements View.OnTouch
 
     /**
      * Moves card for drag-and-drop movements, but only if the touch point left the area of the initial
-     * point of ActionDown.
+     * point of ActionDown. The cards are moved by the drag renderer once per frame.
      *
+     * @param v The touched image view
+     * @param event The motion event
      * @param X The absolute X-coordinate on the game layout
      * @param Y The absolute X-coordinate on the game layout
      * @return True to end the input
      */
-    private boolean motionActionMove(float X, float Y){
+    private boolean motionActionMove(CustomImageView v, MotionEvent event, float X, float Y){
         if (movingCards.moveStarted(X,Y)) {
-            movingCards.move(X, Y);
-            cardHighlight.move(tapped.getCard());
+            dragRenderer.add(event, v.getX(), v.getY());
         }
 
         return true;
@@ -379,10 +424,11 @@ public class GameManager extends CustomAppCompatActivity implements View.OnTouch
 
         if (movingCards.moveStarted(X,Y)){
 
+            dragRenderer.finish(X, Y);
             cardHighlight.hide();
             Stack stack = getIntersectingStack(movingCards.first());
 
-            if (stack != null) {    //the card.test() method is already called in getIntersectingStack()
+            if (stack != null) {    //only legal destinations are returned from getIntersectingStack()
                 movingCards.moveToDestination(stack);
             } else {
                 movingCards.returnToPos();
@@ -390,7 +436,7 @@ public class GameManager extends CustomAppCompatActivity implements View.OnTouch
 
             return resetTappedCard();
         } else if (currentGame.isSingleTapEnabled() && tapped.getCard().test(currentGame.getDiscardStack())
-                && getSharedBoolean(PREF_KEY_SINGLE_TAP_ENABLE,DEFAULT_SINGLE_TAP_ENABLED)) {
+                && settings.singleTap) {
 
             movingCards.moveToDestination(currentGame.getDiscardStack());
             return resetTappedCard();
@@ -406,32 +452,29 @@ public class GameManager extends CustomAppCompatActivity implements View.OnTouch
      * If another stack is also a possible destination AND has a higher intersection rate, save the
      * new stack instead. So at the end, the best possible destination will be returned.
      *
-     * It takes one card and tests every stack (expect the stack, where the card is located on)
+     * It takes one card and uses the stacks found in the stack index, which are also legal
+     * destinations calculated on touch down (see MovingCards.findLegalDestinations())
      *
      * @param card The card to test
      * @return A possible destination with the highest intersection
      */
     private Stack getIntersectingStack(Card card) {
 
-        RectF cardRect = new RectF(card.getX(), card.getY(), card.getX() + card.view.getWidth(), card.getY() + card.view.getHeight());
+        float left = card.getX(), top = card.getY();
+        float right = left + card.view.getWidth(), bottom = top + card.view.getHeight();
 
         Stack returnStack = null;
         float overlapArea = 0;
+        long candidates = stackIndex.query(left, top, right, bottom) & movingCards.getLegalDestinations();
 
-        for (Stack stack : stacks) {
-            if (card.getStack() == stack)
-                continue;
+        while (candidates != 0) {
+            int id = Long.numberOfTrailingZeros(candidates);
+            candidates &= candidates - 1;
+            float area = stackIndex.getOverlapArea(id, left, top, right, bottom);
 
-            RectF stackRect = stack.getRect();
-
-            if (RectF.intersects(cardRect, stackRect) && card.test(stack)) {
-                float overlapX = max(0, min(cardRect.right, stackRect.right) - max(cardRect.left, stackRect.left));
-                float overlapY = max(0, min(cardRect.bottom, stackRect.bottom) - max(cardRect.top, stackRect.top));
-
-                if (overlapX * overlapY > overlapArea) {
-                    overlapArea = overlapX * overlapY;
-                    returnStack = stack;
-                }
+            if (area > overlapArea) {
+                overlapArea = area;
+                returnStack = stacks[id];
             }
         }
 
@@ -480,7 +523,7 @@ public class GameManager extends CustomAppCompatActivity implements View.OnTouch
      * @return True if no movement is allowed, false otherwise
      */
     private boolean stopConditions() {
-        return (autoComplete.isRunning() || animate.cardIsAnimating() || hint.isWorking());
+        return (autoComplete.isRunning() || !animate.isIdle() || hint.isWorking());
     }
 
     /**
@@ -586,6 +629,20 @@ public class GameManager extends CustomAppCompatActivity implements View.OnTouch
         restartDialog.show(getSupportFragmentManager(), RESTART_DIALOG);
     }
 
+    /**
+     * Shows the dialog to undo or start a new game, after the dead end detector found a dead end.
+     *
+     * @param reason The string resource of the found dead end, used as the title
+     */
+    public void showDeadEndDialog(int reason) {
+        Bundle args = new Bundle();
+        args.putInt(DeadEndDialog.REASON, reason);
+
+        DeadEndDialog deadEndDialog = new DeadEndDialog();
+        deadEndDialog.setArguments(args);
+        deadEndDialog.show(getSupportFragmentManager(), DEAD_END_DIALOG);
+    }
+
     private boolean resetTappedCard(){
         tapped=null;
         cardHighlight.hide();
@@ -44,7 +44,7 @@ import static de.tobiasbielefeld.solitaire.SharedData.scores;
 public class Statistics extends CustomAppCompatActivity {
 
     private TableLayout tableLayout;
-    private TextView textWonGames, textWinPercentage;
+    private TextView textWonGames, textWinPercentage, textDeadEnds;
     private Toast toast;
 
 
@@ -67,6 +67,7 @@ public class Statistics extends CustomAppCompatActivity {
         tableLayout = (TableLayout) findViewById(R.id.statisticsTableHighScores);
         textWonGames = (TextView) findViewById(R.id.statisticsTextViewGamesWon);
         textWinPercentage = (TextView) findViewById(R.id.statisticsTextViewWinPercentage);
+        textDeadEnds = (TextView) findViewById(R.id.statisticsTextViewDeadEnds);
 
         loadData();
 
@@ -128,6 +129,7 @@ public class Statistics extends CustomAppCompatActivity {
 
         textWonGames.setText(String.format(Locale.getDefault(), getString(R.string.statistics_text_won_games), wonGames, totalGames));
         textWinPercentage.setText(String.format(Locale.getDefault(), getString(R.string.statistics_win_percentage), totalGames > 0 ? ((float) wonGames * 100 / totalGames) : 0.0));
+        textDeadEnds.setText(String.format(Locale.getDefault(), getString(R.string.statistics_dead_ends), gameLogic.getNumberOfDeadEnds()));
     }
 
     /**
@@ -109,6 +109,8 @@ public class Settings extends AppCompatPreferenceActivity implements SharedPrefe
      * I would need to write the strings manually in the cases.
      */
     public void onSharedPreferenceChanged(SharedPreferences sharedPreferences, String key) {
+        updateSettings();
+
         if (key.equals(CARD_DRAWABLES)) {
             Card.updateCardDrawableChoice();
 
@@ -0,0 +1,223 @@
+/*
+ * Copyright (C) 2016  Tobias Bielefeld
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * If you want to contact me, send me an e-mail at tobias.bielefeld@gmail.com
+ */
+
+package de.tobiasbielefeld.solitaire.helper;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import de.tobiasbielefeld.solitaire.classes.Card;
+import de.tobiasbielefeld.solitaire.classes.Stack;
+import de.tobiasbielefeld.solitaire.games.Klondike;
+
+import static de.tobiasbielefeld.solitaire.SharedData.*;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Tests the order in which an undo moves the cards of a record back, and the score it reverts,
+ * when the auto play added its movements to the record of the player. The cards are only kept in
+ * plain lists here, an undo is replayed by moving every card of the record to its origin, like
+ * Entry.undo() does. The score only sums up the points.
+ */
+
+public class RecordListTest {
+
+    private RecordList recordList;
+    private ArrayList<ArrayList<Card>> piles;                                                       //the cards on every stack, from bottom to top
+    private int score;
+
+    @Before
+    public void setUp() {
+        gameLogic = new GameLogic(null);
+        currentGame = new Klondike();
+
+        for (int i = 0; i < cards.length; i++) {
+            cards[i] = new Card(i);
+        }
+
+        piles = new ArrayList<>();
+
+        for (int i = 0; i < stacks.length; i++) {
+            stacks[i] = new Stack(i);
+            piles.add(new ArrayList<Card>());
+        }
+
+        recordList = new RecordList(null);
+        score = 0;
+        scores = new Scores(null) {
+            @Override
+            public void update(int points) {
+                score += points;
+            }
+        };
+    }
+
+    /**
+     * The player moves X from tableau A to B, which uncovers the safe card Y on A. The auto play
+     * moves Y to a foundation. The undo has to put Y back on A before X, so X ends on top again.
+     */
+    @Test
+    public void moveUncoversSafeCardThenUndo() {
+        Stack tableauA = stacks[0], tableauB = stacks[1], foundation = stacks[7];
+        Card other = cards[20], cardY = cards[14], cardX = cards[32];
+
+        put(tableauA, other, cardY, cardX);
+        ArrayList<Card> startOfA = new ArrayList<>(pile(tableauA));
+
+        playerMove(cardX, tableauB);
+        autoPlayMove(cardY, foundation);
+
+        assertEquals(Arrays.asList(cardY, cardX), recordList.getLastEntryCards());
+        assertEquals(Arrays.asList(tableauA, tableauA), recordList.getLastEntryOrigins());
+
+        undo();
+
+        assertEquals(startOfA, pile(tableauA));
+        assertEquals(0, pile(tableauB).size());
+        assertEquals(0, pile(foundation).size());
+    }
+
+    /**
+     * The auto play moves several cards after each other: The later movement has to be undone
+     * first.
+     */
+    @Test
+    public void severalAutoPlayMovesAreUndoneInReverseOrder() {
+        Stack tableauA = stacks[0], tableauB = stacks[1], tableauC = stacks[2], foundation = stacks[7];
+        Card ace = cards[0], two = cards[1], cardX = cards[45];
+
+        put(tableauA, two, cardX);
+        put(tableauC, ace);
+        ArrayList<Card> startOfA = new ArrayList<>(pile(tableauA));
+
+        playerMove(cardX, tableauB);
+        autoPlayMove(ace, foundation);
+        autoPlayMove(two, foundation);
+
+        undo();
+
+        assertEquals(startOfA, pile(tableauA));
+        assertEquals(Arrays.asList(ace), pile(tableauC));
+        assertEquals(0, pile(foundation).size());
+    }
+
+    /**
+     * The auto play moves the card the player just moved: The record keeps the card only once,
+     * with the origin from before the player's movement.
+     */
+    @Test
+    public void autoPlayOfThePlayersCardKeepsTheFirstOrigin() {
+        Stack tableauA = stacks[0], freeSpot = stacks[1], foundation = stacks[7];
+        Card ace = cards[0];
+
+        put(tableauA, cards[30], ace);
+        ArrayList<Card> startOfA = new ArrayList<>(pile(tableauA));
+
+        playerMove(ace, freeSpot);
+        autoPlayMove(ace, foundation);
+
+        assertEquals(Arrays.asList(ace), recordList.getLastEntryCards());
+        assertEquals(Arrays.asList(tableauA), recordList.getLastEntryOrigins());
+
+        undo();
+
+        assertEquals(startOfA, pile(tableauA));
+    }
+
+    /**
+     * The player moves a card from the discard stack to the tableau, then the auto play moves
+     * three cards to a foundation. The undo has to revert the points of every movement.
+     */
+    @Test
+    public void undoRevertsThePointsOfEveryAutoPlayMove() {
+        Stack discard = stacks[13], tableauA = stacks[0], tableauB = stacks[1], foundation = stacks[7];
+        Card ace = cards[0], two = cards[1], three = cards[2];
+
+        put(tableauA, three, two, ace);
+        put(discard, cards[30]);
+
+        playerMove(cards[30], tableauB);
+        autoPlayMove(ace, foundation);
+        autoPlayMove(two, foundation);
+        autoPlayMove(three, foundation);
+
+        assertEquals(45 + 3 * 60, score);
+
+        undo();
+
+        assertEquals(0, score);
+    }
+
+    private ArrayList<Card> pile(Stack stack) {
+        return piles.get(stack.getId());
+    }
+
+    private void put(Stack stack, Card... cardsToPut) {
+        for (Card card : cardsToPut) {
+            pile(stack).add(card);
+            card.setStack(stack);
+        }
+    }
+
+    private void move(Card card, Stack destination) {
+        pile(card.getStack()).remove(card);
+        put(destination, card);
+    }
+
+    /**
+     * Records and moves the card like a movement of the player, with every card above it.
+     */
+    private void playerMove(Card card, Stack destination) {
+        ArrayList<Card> origin = pile(card.getStack());
+        ArrayList<Card> moved = new ArrayList<>(origin.subList(origin.indexOf(card), origin.size()));
+
+        recordList.add(moved, card.getStack());
+        scores.move(card, destination);
+
+        for (Card movedCard : moved) {
+            move(movedCard, destination);
+        }
+    }
+
+    /**
+     * Records and moves the card like PostMovePipeline.runAutoPlay() does.
+     */
+    private void autoPlayMove(Card card, Stack destination) {
+        int points = scores.move(card, destination);
+        recordList.addInFrontOfLastEntry(card, card.getStack(), points);
+        move(card, destination);
+    }
+
+    /**
+     * Reverts the score of the last record and moves every card of it back to its origin, in the
+     * order of the record.
+     */
+    private void undo() {
+        recordList.undoLastEntryScore();
+
+        ArrayList<Card> recordCards = recordList.getLastEntryCards();
+        ArrayList<Stack> recordOrigins = recordList.getLastEntryOrigins();
+
+        for (int i = 0; i < recordCards.size(); i++) {
+            move(recordCards.get(i), recordOrigins.get(i));
+        }
+    }
+}